@@ -4,12 +4,13 @@ import android.content.Context;
 
 import com.github.skyborla.worktime.model.WorkRecord;
 
-import org.threeten.bp.Duration;
 import org.threeten.bp.LocalDate;
 import org.threeten.bp.LocalTime;
 import org.threeten.bp.format.DateTimeFormatter;
 import org.threeten.bp.format.DateTimeParseException;
 
+import java.util.Locale;
+
 /**
  * Created by Sebastian on 13.09.2014.
  */
@@ -31,12 +32,106 @@ public final class FormatUtil {
 
     public final static DateTimeFormatter DATE_TIME_FORMATTER_FULL = DateTimeFormatter.ofPattern("HH:mm dd.MM.yyyy");
 
+    // "00" to "99"
+    private final static char[][] TWO_DIGITS = new char[100][];
+
+    static {
+        for (int i = 0; i < TWO_DIGITS.length; i++) {
+            TWO_DIGITS[i] = new char[]{(char) ('0' + i / 10), (char) ('0' + i % 10)};
+        }
+    }
+
+    // formatted on first use, see formatWeekday and formatShortDate
+    private static volatile LocaleStrings localeStrings;
+
+    /**
+     * Same as {@code DATE_FORMAT_DAY.format(date)} in the current default locale, formatted once
+     * per day of the week and locale.
+     */
+    public static String formatWeekday(LocalDate date) {
+        LocaleStrings strings = getLocaleStrings();
+        int i = date.getDayOfWeek().ordinal();
+        String weekday = strings.weekdays[i];
+        if (weekday == null) {
+            weekday = strings.weekdayFormat.format(date);
+            strings.weekdays[i] = weekday;
+        }
+        return weekday;
+    }
+
+    /**
+     * Same as {@code DATE_FORMAT_SHORT.format(date)} in the current default locale, formatted once
+     * per day of the year and locale.
+     */
+    public static String formatShortDate(LocalDate date) {
+        LocaleStrings strings = getLocaleStrings();
+        int i = date.getMonthValue() * 32 + date.getDayOfMonth();
+        String shortDate = strings.shortDates[i];
+        if (shortDate == null) {
+            shortDate = strings.shortDateFormat.format(date);
+            strings.shortDates[i] = shortDate;
+        }
+        return shortDate;
+    }
+
+    private static LocaleStrings getLocaleStrings() {
+        Locale locale = Locale.getDefault();
+        LocaleStrings strings = localeStrings;
+        if (strings == null || !strings.locale.equals(locale)) {
+            strings = new LocaleStrings(locale);
+            localeStrings = strings;
+        }
+        return strings;
+    }
+
+    /**
+     * Formatted dates of one locale, replaced as a whole when the default locale changes.
+     */
+    private static final class LocaleStrings {
+
+        final Locale locale;
+        final DateTimeFormatter weekdayFormat;
+        final DateTimeFormatter shortDateFormat;
+
+        final String[] weekdays = new String[7];
+        final String[] shortDates = new String[13 * 32];
+
+        LocaleStrings(Locale locale) {
+            this.locale = locale;
+            this.weekdayFormat = DATE_FORMAT_DAY.withLocale(locale);
+            this.shortDateFormat = DATE_FORMAT_SHORT.withLocale(locale);
+        }
+    }
+
+    /**
+     * Same as {@code TIME_FORMAT.format(time)}.
+     */
+    public static String formatTime(LocalTime time) {
+        char[] chars = new char[5];
+        putTime(chars, 0, time);
+        return new String(chars);
+    }
+
     public static String formatTimes(WorkRecord workRecord) {
+        char[] chars = new char[13];
+        putTime(chars, 0, workRecord.getStartTime());
+        chars[5] = ' ';
+        chars[6] = '-';
+        chars[7] = ' ';
+        putTime(chars, 8, workRecord.getEndTime());
+        return new String(chars);
+    }
 
-        String startTime = FormatUtil.TIME_FORMAT.format(workRecord.getStartTime());
-        String endTime = FormatUtil.TIME_FORMAT.format(workRecord.getEndTime());
+    private static void putTime(char[] chars, int offset, LocalTime time) {
+        putTwoDigits(chars, offset, time.getHour());
+        chars[offset + 2] = ':';
+        putTwoDigits(chars, offset + 3, time.getMinute());
+    }
 
-        return startTime + " - " + endTime;
+    private static void putTwoDigits(char[] chars, int offset, int value) {
+        char[] digits = TWO_DIGITS[value];
+        chars[offset] = digits[0];
+        chars[offset + 1] = digits[1];
     }
 
     public static LocalDate parseDate(String dateString) {
@@ -64,11 +159,6 @@ public final class FormatUtil {
         }
     }
 
-    public static LocalDate parseDBMonthFormat(String dbFormatted) {
-        return LocalDate.of(Integer.valueOf(dbFormatted.substring(0, 4)),
-                Integer.valueOf(dbFormatted.substring(4)), 1);
-    }
-
     public static String formatNaturalLanguageDuration(Context context, int seconds) {
         int h = (int) seconds / 3600;
         int m = (int) (seconds / 60) % 60;
@@ -84,14 +174,25 @@ public final class FormatUtil {
     }
 
     public static String formatDuration(LocalTime start, LocalTime end) {
-        Duration duration = Duration.between(start, end);
-        return formatDuration((int) duration.getSeconds());
+        return formatDuration(end.toSecondOfDay() - start.toSecondOfDay());
     }
 
     public static String formatDuration(int seconds) {
         int h = (int) seconds / 3600;
         int m = (int) (seconds / 60) % 60;
 
-        return String.format("%02d:%02d", h, m);
+        if (seconds < 0) {
+            // keeps the minus signs of both parts
+            return String.format("%02d:%02d", h, m);
+        }
+        if (h >= 100) {
+            return h + ":" + new String(TWO_DIGITS[m]);
+        }
+
+        char[] chars = new char[5];
+        putTwoDigits(chars, 0, h);
+        chars[2] = ':';
+        putTwoDigits(chars, 3, m);
+        return new String(chars);
     }
 }
@@ -1,8 +1,10 @@
 package com.github.skyborla.worktime;
 
 import android.app.Fragment;
+import android.app.ProgressDialog;
 import android.app.FragmentManager;
 import android.content.Context;
+import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.net.Uri;
@@ -16,32 +18,44 @@ import android.view.MenuItem;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import com.github.skyborla.worktime.export.ExportFormat;
+import com.github.skyborla.worktime.export.ExportProgress;
 import com.github.skyborla.worktime.export.RecordsExporter;
+import com.github.skyborla.worktime.model.DB;
 import com.github.skyborla.worktime.model.DataSource;
 import com.github.skyborla.worktime.model.LeaveRecord;
 import com.github.skyborla.worktime.model.WorkRecord;
 import com.github.skyborla.worktime.ui.AboutDialog;
+import com.github.skyborla.worktime.ui.ContinuousMonthTimeline;
+import com.github.skyborla.worktime.ui.ExportDialog;
+import com.github.skyborla.worktime.ui.MonthTimeline;
+import com.github.skyborla.worktime.ui.RecordedMonthTimeline;
 import com.github.skyborla.worktime.ui.leave.DeleteLeaveRecordHelper;
 import com.github.skyborla.worktime.ui.leave.EditLeaveRecordFragment;
 import com.github.skyborla.worktime.ui.leave.NewLeaveRecordFragment;
+import com.github.skyborla.worktime.ui.list.MonthCache;
 import com.github.skyborla.worktime.ui.list.RecordsFragment;
+import com.github.skyborla.worktime.ui.list.RecordsFragmentRegistry;
 import com.github.skyborla.worktime.ui.work.DeleteWorkRecordHelper;
 import com.github.skyborla.worktime.ui.work.EditWorkRecordFragment;
 import com.github.skyborla.worktime.ui.work.NewWorkRecordFragment;
 
+import org.jdeferred.AlwaysCallback;
 import org.jdeferred.DoneCallback;
 import org.jdeferred.FailCallback;
+import org.jdeferred.ProgressCallback;
+import org.jdeferred.Promise;
 import org.threeten.bp.LocalDate;
 import org.threeten.bp.LocalDateTime;
 
-import java.sql.SQLException;
 import java.text.DateFormatSymbols;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 
 
-public class Worktime extends AppCompatActivity implements RecordsFragment.RecordsFragmentInteractionListener, ModelInteraction {
+public class Worktime extends AppCompatActivity implements RecordsFragment.RecordsFragmentInteractionListener, ModelInteraction,
+        ExportDialog.ExportDialogListener {
 
     public static int DATE_COLUMN_WIDTH;
 
@@ -50,12 +64,22 @@ public class Worktime extends AppCompatActivity implements RecordsFragment.Recor
     public static final String PENDING_START_TIME = "PENDING_START_TIME";
     public static final String PENDING_END_TIME = "PENDING_END_TIME";
 
+    public static final String CONTINUOUS_MONTHS = "CONTINUOUS_MONTHS";
+
+    // pages after the current month in the continuous timeline
+    private static final int FUTURE_MONTHS = 12;
+
     private DataSource dataSource;
 
     SectionsPagerAdapter mSectionsPagerAdapter;
     ViewPager mViewPager;
 
-    private List<LocalDate> months;
+    private MonthTimeline timeline;
+
+    private final RecordsFragmentRegistry recordsFragments = new RecordsFragmentRegistry();
+
+    private RecordsExporter exporter;
+    private ProgressDialog exportDialog;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -74,14 +98,8 @@ public class Worktime extends AppCompatActivity implements RecordsFragment.Recor
                     pref.getString(PENDING_END_TIME, "")).show(getSupportFragmentManager(), "newWorkRecord");
         }
 
-        dataSource = new DataSource(this);
-        try {
-            dataSource.open();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        months = dataSource.getMonths();
+        dataSource = DataSource.acquire(this);
+        timeline = createTimeline(pref.getBoolean(CONTINUOUS_MONTHS, false));
 
         // Create the adapter that will return a fragment for each of the three
         // primary sections of the activity.
@@ -91,35 +109,36 @@ public class Worktime extends AppCompatActivity implements RecordsFragment.Recor
         mViewPager = (ViewPager) findViewById(R.id.pager);
         mViewPager.setAdapter(mSectionsPagerAdapter);
 
-        LocalDate now = LocalDate.now().withDayOfMonth(1);
-        if (months.contains(now)) {
-            mViewPager.setCurrentItem(months.indexOf(now));
-        } else if (months.size() > 0) {
-            mViewPager.setCurrentItem(months.size() - 1);
+        int nowPosition = getMonthPosition(LocalDate.now());
+        if (nowPosition >= 0) {
+            mViewPager.setCurrentItem(nowPosition);
+        } else if (timeline.size() > 0) {
+            mViewPager.setCurrentItem(timeline.size() - 1);
         }
 
         initializeDayColumnListWidth();
     }
 
     @Override
-    protected void onResume() {
-        try {
-            dataSource.open();
-        } catch (SQLException e) {
-            e.printStackTrace();
+    protected void onDestroy() {
+        // the export reports to this instance only, a recreated activity would lose it; the
+        // cancelled export deletes its partial file
+        if (exporter != null) {
+            exporter.cancel(true);
+        }
+        if (exportDialog != null) {
+            exportDialog.dismiss();
+            exportDialog = null;
         }
-        super.onResume();
-    }
 
-    @Override
-    protected void onPause() {
-        dataSource.close();
-        super.onPause();
+        dataSource.release();
+        super.onDestroy();
     }
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.global, menu);
+        menu.findItem(R.id.action_continuous_months).setChecked(timeline instanceof ContinuousMonthTimeline);
         return true;
     }
 
@@ -135,30 +154,17 @@ public class Worktime extends AppCompatActivity implements RecordsFragment.Recor
                 return true;
 
             case R.id.action_send_email:
-                RecordsExporter exporter = new RecordsExporter(this, dataSource);
-                exporter.execute();
-                exporter.promise().done(new DoneCallback<Uri>() {
-                    @Override
-                    public void onDone(Uri uri) {
-                        System.out.println("DONE");
-
-                        String text = "Arbeitszeit Export " + LocalDateTime.now().format(FormatUtil.DATE_TIME_FORMATTER_FULL);
-
-                        Intent sendIntent = new Intent(Intent.ACTION_SEND);
-                        sendIntent.setType("application/octet-stream");
-                        sendIntent.putExtra(Intent.EXTRA_STREAM, uri);
-                        sendIntent.putExtra(Intent.EXTRA_SUBJECT, text);
-                        sendIntent.putExtra(Intent.EXTRA_TEXT, text);
-                        sendIntent.putExtra(Intent.EXTRA_TITLE, text);
-                        startActivity(Intent.createChooser(sendIntent, "Email senden"));
-                    }
-                }).fail(new FailCallback<Throwable>() {
-                    @Override
-                    public void onFail(Throwable result) {
-                        Toast.makeText(Worktime.this, R.string.export_failed, Toast.LENGTH_SHORT).show();
-                        result.printStackTrace();
-                    }
-                });
+                if (exporter == null) {
+                    ExportDialog.newInstance(getCurrentMonth()).show(getSupportFragmentManager(), "export");
+                }
+                return true;
+
+            case R.id.action_continuous_months:
+                boolean continuous = !item.isChecked();
+                item.setChecked(continuous);
+
+                getPreferences(Context.MODE_PRIVATE).edit().putBoolean(CONTINUOUS_MONTHS, continuous).apply();
+                switchTimeline(continuous);
                 return true;
 
             case R.id.action_about_dialog:
@@ -169,6 +175,81 @@ public class Worktime extends AppCompatActivity implements RecordsFragment.Recor
         return super.onOptionsItemSelected(item);
     }
 
+    @Override
+    public void onContextMenuClosed(Menu menu) {
+        super.onContextMenuClosed(menu);
+        recordsFragments.contextMenuClosed();
+    }
+
+    @Override
+    public void startExport(ExportFormat format, LocalDate fromDate, LocalDate untilDate) {
+        if (exporter != null) {
+            return;
+        }
+
+        exporter = new RecordsExporter(getApplicationContext(), format, fromDate, untilDate);
+        showExportDialog();
+        exporter.promise().progress(new ProgressCallback<ExportProgress>() {
+            @Override
+            public void onProgress(ExportProgress progress) {
+                if (exportDialog != null) {
+                    exportDialog.setMax(progress.getTotalMonths());
+                    exportDialog.setProgress(progress.getExportedMonths());
+                }
+            }
+        }).always(new AlwaysCallback<Uri, Throwable>() {
+            @Override
+            public void onAlways(Promise.State state, Uri uri, Throwable rejected) {
+                exporter = null;
+                if (exportDialog != null) {
+                    exportDialog.dismiss();
+                    exportDialog = null;
+                }
+            }
+        }).done(new DoneCallback<Uri>() {
+            @Override
+            public void onDone(Uri uri) {
+                String text = "Arbeitszeit Export " + LocalDateTime.now().format(FormatUtil.DATE_TIME_FORMATTER_FULL);
+
+                Intent sendIntent = new Intent(Intent.ACTION_SEND);
+                sendIntent.setType("application/octet-stream");
+                sendIntent.putExtra(Intent.EXTRA_STREAM, uri);
+                sendIntent.putExtra(Intent.EXTRA_SUBJECT, text);
+                sendIntent.putExtra(Intent.EXTRA_TEXT, text);
+                sendIntent.putExtra(Intent.EXTRA_TITLE, text);
+                startActivity(Intent.createChooser(sendIntent, "Email senden"));
+            }
+        }).fail(new FailCallback<Throwable>() {
+            @Override
+            public void onFail(Throwable result) {
+                if (result instanceof CancellationException) {
+                    return;
+                }
+
+                Toast.makeText(Worktime.this, R.string.export_failed, Toast.LENGTH_SHORT).show();
+                result.printStackTrace();
+            }
+        });
+        exporter.execute();
+    }
+
+    private void showExportDialog() {
+        exportDialog = new ProgressDialog(this);
+        exportDialog.setMessage(getString(R.string.export_progress));
+        exportDialog.setProgressStyle(ProgressDialog.STYLE_HORIZONTAL);
+        exportDialog.setProgressNumberFormat(null);
+        exportDialog.setCancelable(true);
+        exportDialog.setOnCancelListener(new DialogInterface.OnCancelListener() {
+            @Override
+            public void onCancel(DialogInterface dialog) {
+                if (exporter != null) {
+                    exporter.cancel(true);
+                }
+            }
+        });
+        exportDialog.show();
+    }
+
     @Override
     public void beginEditWorkRecord(WorkRecord workRecord) {
         EditWorkRecordFragment
@@ -195,6 +276,11 @@ public class Worktime extends AppCompatActivity implements RecordsFragment.Recor
         helper.confirmAndDelete();
     }
 
+    @Override
+    public RecordsFragmentRegistry getRecordsFragmentRegistry() {
+        return recordsFragments;
+    }
+
     @Override
     public DataSource getDataSource() {
         return dataSource;
@@ -203,36 +289,34 @@ public class Worktime extends AppCompatActivity implements RecordsFragment.Recor
     @Override
     public void modelChanged(Set<LocalDate> changed) {
 
-        LocalDate currentMonth = null;
-        try {
-            currentMonth = months.get(mViewPager.getCurrentItem());
-        } catch (Throwable t) {
+        // cached pages of changed months are stale now
+        MonthCache.invalidate(changed);
+
+        LocalDate currentMonth = getCurrentMonth();
+        if (currentMonth == null) {
             System.out.println("MODEL CHANGED : cannot determine current month.");
         }
 
-        months = dataSource.getMonths();
-        mSectionsPagerAdapter.notifyDataSetChanged();
-
-        // propagate update to pages
-        for (LocalDate date : changed) {
-            String tag = "android:switcher:" + R.id.pager + ":" + date.hashCode();
-            RecordsFragment fragment = (RecordsFragment) getFragmentManager().findFragmentByTag(tag);
-
-            if (fragment != null) {
-                fragment.onRecordsUpdated();
-            } else {
-                System.out.println("FRAGMENT null " + date);
-            }
+        // changed pages reload themselves, the pager only updates when pages come or go
+        MonthTimeline updated = timeline.update(dataSource, changed);
+        if (updated != timeline) {
+            timeline = updated;
+            mSectionsPagerAdapter.notifyDataSetChanged();
         }
 
+        // propagate update to pages, months not shown right now reload when shown again
+        recordsFragments.refresh(changed);
+
         // determine if we need to change the page
         Set<LocalDate> displayCandidates = new HashSet<LocalDate>();
-        displayCandidates.addAll(changed);
-        displayCandidates.retainAll(months);
-
         LocalDate firstDisplayCandidate = null;
-        if (!displayCandidates.isEmpty()) {
-            firstDisplayCandidate = displayCandidates.iterator().next();
+        for (LocalDate date : changed) {
+            if (getMonthPosition(date) >= 0) {
+                displayCandidates.add(date);
+                if (firstDisplayCandidate == null) {
+                    firstDisplayCandidate = date;
+                }
+            }
         }
 
         // current month changed -> do nothing
@@ -243,7 +327,7 @@ public class Worktime extends AppCompatActivity implements RecordsFragment.Recor
 
         // try to go to a visible changed page
         else if (firstDisplayCandidate != null) {
-            int target = months.indexOf(firstDisplayCandidate);
+            int target = getMonthPosition(firstDisplayCandidate);
 
             System.out.println("MODEL CHANGED : Go to first display candidate (index) " + target);
             mViewPager.setCurrentItem(target);
@@ -251,14 +335,14 @@ public class Worktime extends AppCompatActivity implements RecordsFragment.Recor
 
         // ensure valid page (unrelated to change)
         else {
-            LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+            int thisMonthPosition = getMonthPosition(LocalDate.now());
 
-            if (currentMonth != null && months.contains(currentMonth)) {
+            if (currentMonth != null && getMonthPosition(currentMonth) >= 0) {
                 System.out.println("MODEL CHANGED : WAT?.");
                 return;
-            } else if (months.contains(thisMonth)) {
+            } else if (thisMonthPosition >= 0) {
                 System.out.println("MODEL CHANGED : Go to this month.");
-                mViewPager.setCurrentItem(months.indexOf(thisMonth));
+                mViewPager.setCurrentItem(thisMonthPosition);
             } else {
                 System.out.println("MODEL CHANGED : Go to view zero.");
                 mViewPager.setCurrentItem(0);
@@ -273,6 +357,43 @@ public class Worktime extends AppCompatActivity implements RecordsFragment.Recor
         modelChanged(affectedMonth);
     }
 
+    private MonthTimeline createTimeline(boolean continuous) {
+        if (continuous) {
+            return ContinuousMonthTimeline.of(dataSource, FUTURE_MONTHS);
+        }
+        return new RecordedMonthTimeline(dataSource.getMonths());
+    }
+
+    /**
+     * Replaces the pages, staying on the current month if it has a page in both timelines.
+     */
+    private void switchTimeline(boolean continuous) {
+        LocalDate currentMonth = getCurrentMonth();
+
+        timeline = createTimeline(continuous);
+        mSectionsPagerAdapter.notifyDataSetChanged();
+
+        int position = currentMonth == null ? -1 : getMonthPosition(currentMonth);
+        if (position >= 0) {
+            mViewPager.setCurrentItem(position, false);
+        }
+    }
+
+    private LocalDate getCurrentMonth() {
+        int position = mViewPager.getCurrentItem();
+        if (position < 0 || position >= timeline.size()) {
+            return null;
+        }
+        return timeline.getMonth(position);
+    }
+
+    /**
+     * The page of the month of the given date, -1 if the month has no page.
+     */
+    private int getMonthPosition(LocalDate date) {
+        return timeline.getPosition(DB.toDBMonth(date));
+    }
+
     private void initializeDayColumnListWidth() {
         int max = 0;
         for (String s : DateFormatSymbols.getInstance().getShortWeekdays()) {
@@ -299,30 +420,28 @@ public class Worktime extends AppCompatActivity implements RecordsFragment.Recor
 
         @Override
         public Fragment getItem(int position) {
-            return RecordsFragment.newInstance(months.get(position));
+            return RecordsFragment.newInstance(timeline.getMonth(position));
         }
 
         @Override
         public int getCount() {
-            return months.size();
+            return timeline.size();
         }
 
         @Override
         public long getItemId(int position) {
-            return months.get(position).hashCode();
+            return timeline.getMonth(position).hashCode();
         }
 
         @Override
         public int getItemPosition(Object object) {
-            String monthString = ((RecordsFragment) object).getMonth();
-            int position = months.indexOf(FormatUtil.parseDBMonthFormat(monthString));
-            System.out.println(monthString + "@" + position);
-            return position;
+            int position = timeline.getPosition(((RecordsFragment) object).getMonthKey());
+            return position < 0 ? POSITION_NONE : position;
         }
 
         @Override
         public CharSequence getPageTitle(int position) {
-            LocalDate date = months.get(position);
+            LocalDate date = timeline.getMonth(position);
             return FormatUtil.DATE_FORMAT_MONTH.format(date).toUpperCase();
         }
     }
@@ -0,0 +1,81 @@
+package com.github.skyborla.worktime.export;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Labels and row markers in the order they were made, to be replayed on a sheet later.
+ */
+class CellLog {
+
+    private static final RowMarker[] MARKERS = RowMarker.values();
+
+    // a negative column stands for a row marker
+    private int[] rows = new int[64];
+    private int[] columns = new int[64];
+    private String[] texts = new String[64];
+    private int size = 0;
+
+    void addLabel(int column, int row, String text) {
+        append(row, column, text);
+    }
+
+    void markRow(int row, RowMarker marker) {
+        append(row, -1 - marker.ordinal(), null);
+    }
+
+    private void append(int row, int column, String text) {
+        if (size == rows.length) {
+            rows = Arrays.copyOf(rows, size * 2);
+            columns = Arrays.copyOf(columns, size * 2);
+            texts = Arrays.copyOf(texts, size * 2);
+        }
+
+        rows[size] = row;
+        columns[size] = column;
+        texts[size] = text;
+        size++;
+    }
+
+    void replay(SheetWriter sheet, int rowOffset) throws IOException {
+        for (int i = 0; i < size; i++) {
+            if (columns[i] >= 0) {
+                sheet.addLabel(columns[i], rowOffset + rows[i], texts[i]);
+            } else {
+                sheet.markRow(rowOffset + rows[i], MARKERS[-1 - columns[i]]);
+            }
+        }
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(rows[i]);
+            out.writeInt(columns[i]);
+            if (columns[i] >= 0) {
+                out.writeUTF(texts[i]);
+            }
+        }
+    }
+
+    static CellLog readFrom(DataInput in) throws IOException {
+        CellLog log = new CellLog();
+
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            int row = in.readInt();
+            int column = in.readInt();
+            if (column >= 0) {
+                log.append(row, column, in.readUTF());
+            } else if (-1 - column < MARKERS.length) {
+                log.append(row, column, null);
+            } else {
+                throw new IOException("unknown row marker " + column);
+            }
+        }
+
+        return log;
+    }
+}
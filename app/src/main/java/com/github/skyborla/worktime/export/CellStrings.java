@@ -0,0 +1,89 @@
+package com.github.skyborla.worktime.export;
+
+import android.content.Context;
+
+import com.github.skyborla.worktime.FormatUtil;
+import com.github.skyborla.worktime.model.LeaveReason;
+import com.github.skyborla.worktime.model.WorkRecord;
+
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.LocalTime;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The strings of the export cells. Every distinct value is formatted once and then reused,
+ * most rows repeat the same few dates, times and durations. Not thread safe, use one
+ * instance per sheet.
+ */
+class CellStrings {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final String[] monthNames = new String[12];
+    private final String[] weeks = new String[54];
+    private final String[] times = new String[MINUTES_PER_DAY];
+    private final String[] durations = new String[MINUTES_PER_DAY + 1];
+
+    private final Map<LeaveReason, String> leaveLabels = new EnumMap<LeaveReason, String>(LeaveReason.class);
+
+    CellStrings(Context context) {
+        for (LeaveReason reason : LeaveReason.values()) {
+            leaveLabels.put(reason, context.getString(reason.stringResource));
+        }
+    }
+
+    String weekday(LocalDate date) {
+        return FormatUtil.formatWeekday(date);
+    }
+
+    String shortDate(LocalDate date) {
+        return FormatUtil.formatShortDate(date);
+    }
+
+    String monthName(LocalDate month) {
+        int i = month.getMonthValue() - 1;
+        if (monthNames[i] == null) {
+            monthNames[i] = FormatUtil.DATE_FORMAT_MONTH_FULL.format(month);
+        }
+        return monthNames[i];
+    }
+
+    String week(int week) {
+        if (week < 0 || week >= weeks.length) {
+            return "KW " + week;
+        }
+        if (weeks[week] == null) {
+            weeks[week] = "KW " + week;
+        }
+        return weeks[week];
+    }
+
+    // the time format has minute precision
+    String time(LocalTime time) {
+        int i = time.getHour() * 60 + time.getMinute();
+        if (times[i] == null) {
+            times[i] = FormatUtil.formatTime(time);
+        }
+        return times[i];
+    }
+
+    // durations are shown in whole minutes
+    String duration(WorkRecord workRecord) {
+        int seconds = workRecord.getEndTime().toSecondOfDay() - workRecord.getStartTime().toSecondOfDay();
+        if (seconds < 0) {
+            return FormatUtil.formatDuration(workRecord);
+        }
+
+        int i = seconds / 60;
+        if (durations[i] == null) {
+            durations[i] = FormatUtil.formatDuration(seconds);
+        }
+        return durations[i];
+    }
+
+    String leaveLabel(LeaveReason reason) {
+        return leaveLabels.get(reason);
+    }
+}
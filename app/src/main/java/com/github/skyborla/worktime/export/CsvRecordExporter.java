@@ -0,0 +1,70 @@
+package com.github.skyborla.worktime.export;
+
+import android.content.Context;
+
+import com.github.skyborla.worktime.FormatUtil;
+import com.github.skyborla.worktime.model.LeaveRecord;
+import com.github.skyborla.worktime.model.WorkRecord;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Semicolon separated values with a header line, as expected by spreadsheets in German locales.
+ */
+class CsvRecordExporter extends RecordExporter {
+
+    private static final char SEPARATOR = ';';
+
+    private final Context context;
+
+    CsvRecordExporter(Context context, OutputStream out) throws IOException {
+        super(out);
+        this.context = context;
+
+        this.out.write("Datum;Woche;Wochentag;Startzeit;Endzeit;Dauer;Urlaubsgrund\n");
+    }
+
+    @Override
+    protected void writeWorkRecord(WorkRecord workRecord, int week) throws IOException {
+        out.write(workRecord.getDate().toString());
+        out.write(SEPARATOR);
+        out.write(Integer.toString(week));
+        out.write(SEPARATOR);
+        writeQuoted(FormatUtil.formatWeekday(workRecord.getDate()));
+        out.write(SEPARATOR);
+        out.write(FormatUtil.formatTime(workRecord.getStartTime()));
+        out.write(SEPARATOR);
+        out.write(FormatUtil.formatTime(workRecord.getEndTime()));
+        out.write(SEPARATOR);
+        out.write(FormatUtil.formatDuration(workRecord));
+        out.write(SEPARATOR);
+        out.write('\n');
+    }
+
+    @Override
+    protected void writeLeaveRecord(LeaveRecord leaveRecord, int week) throws IOException {
+        out.write(leaveRecord.getDate().toString());
+        out.write(SEPARATOR);
+        out.write(Integer.toString(week));
+        out.write(SEPARATOR);
+        writeQuoted(FormatUtil.formatWeekday(leaveRecord.getDate()));
+        out.write(SEPARATOR);
+        out.write(SEPARATOR);
+        out.write(SEPARATOR);
+        out.write(SEPARATOR);
+        writeQuoted(context.getString(leaveRecord.getReason().stringResource));
+        out.write('\n');
+    }
+
+    private void writeQuoted(String text) throws IOException {
+        if (text.indexOf(SEPARATOR) < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0) {
+            out.write(text);
+            return;
+        }
+
+        out.write('"');
+        out.write(text.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.skyborla.worktime.export;
+
+import android.content.Context;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Available export file formats. The workbook formats get one sheet per year: XLS builds the
+ * workbook in memory with jxl, XLSX streams the rows to the output as they are written.
+ * CSV and JSON lines stream one line per record.
+ */
+public enum ExportFormat {
+
+    XLS("xls", true, true),
+    XLSX("xlsx", true, false),
+    CSV("csv", false, false),
+    JSON_LINES("jsonl", false, false);
+
+    /**
+     * The format preselected for exports, XLS like the exports before the format choice.
+     */
+    public static final ExportFormat DEFAULT = XLS;
+
+    public final String extension;
+    public final boolean workbook;
+    // whether the writer keeps the whole file in memory until it is written
+    public final boolean inMemory;
+
+    ExportFormat(String extension, boolean workbook, boolean inMemory) {
+        this.extension = extension;
+        this.workbook = workbook;
+        this.inMemory = inMemory;
+    }
+
+    public WorkbookWriter createWriter(OutputStream out) throws IOException {
+        switch (this) {
+            case XLS:
+                return new JxlWorkbookWriter(out);
+            case XLSX:
+                return new XlsxWorkbookWriter(out);
+            default:
+                throw new UnsupportedOperationException(this + " is not a workbook format");
+        }
+    }
+
+    public RecordExporter createRecordExporter(Context context, OutputStream out) throws IOException {
+        switch (this) {
+            case CSV:
+                return new CsvRecordExporter(context, out);
+            case JSON_LINES:
+                return new JsonLinesRecordExporter(out);
+            default:
+                throw new UnsupportedOperationException(this + " is a workbook format");
+        }
+    }
+}
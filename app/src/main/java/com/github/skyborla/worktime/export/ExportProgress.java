@@ -0,0 +1,23 @@
+package com.github.skyborla.worktime.export;
+
+/**
+ * Progress of a {@link RecordsExporter}, notified through its promise whenever a month is done.
+ */
+public class ExportProgress {
+
+    private final int exportedMonths;
+    private final int totalMonths;
+
+    public ExportProgress(int exportedMonths, int totalMonths) {
+        this.exportedMonths = exportedMonths;
+        this.totalMonths = totalMonths;
+    }
+
+    public int getExportedMonths() {
+        return exportedMonths;
+    }
+
+    public int getTotalMonths() {
+        return totalMonths;
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.skyborla.worktime.export;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time spent in the phases of an export. The phases of parallel year sheets add up, so
+ * their sum can exceed the total time.
+ */
+public class ExportTiming {
+
+    public enum Phase {
+        // reading records from the database
+        QUERY,
+        // merging and formatting the records of a month, or loading it from the cache
+        RENDER,
+        // writing the output file
+        WRITE
+    }
+
+    private final AtomicLong[] nanos = new AtomicLong[Phase.values().length];
+    private final long start = System.nanoTime();
+    private volatile long end;
+
+    private int months;
+    private int cachedMonths;
+
+    ExportTiming() {
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = new AtomicLong();
+        }
+    }
+
+    void add(Phase phase, long nanos) {
+        this.nanos[phase.ordinal()].addAndGet(nanos);
+    }
+
+    void finish(int months, int cachedMonths) {
+        this.end = System.nanoTime();
+        this.months = months;
+        this.cachedMonths = cachedMonths;
+    }
+
+    public long getMillis(Phase phase) {
+        return nanos[phase.ordinal()].get() / 1000000;
+    }
+
+    public long getTotalMillis() {
+        return ((end == 0 ? System.nanoTime() : end) - start) / 1000000;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("total ").append(getTotalMillis()).append("ms");
+        for (Phase phase : Phase.values()) {
+            builder.append(", ").append(phase.name().toLowerCase(Locale.ROOT)).append(' ').append(getMillis(phase)).append("ms");
+        }
+        builder.append(", months ").append(months).append(" (cached ").append(cachedMonths).append(')');
+        return builder.toString();
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.skyborla.worktime.export;
+
+import com.github.skyborla.worktime.FormatUtil;
+import com.github.skyborla.worktime.model.LeaveRecord;
+import com.github.skyborla.worktime.model.WorkRecord;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * One JSON object per line. Dates are ISO formatted, durations are given in minutes and
+ * leave reasons by their constant name, so the output does not depend on the locale.
+ */
+class JsonLinesRecordExporter extends RecordExporter {
+
+    JsonLinesRecordExporter(OutputStream out) throws IOException {
+        super(out);
+    }
+
+    @Override
+    protected void writeWorkRecord(WorkRecord workRecord, int week) throws IOException {
+        int minutes = (workRecord.getEndTime().toSecondOfDay() - workRecord.getStartTime().toSecondOfDay()) / 60;
+
+        out.write("{\"type\":\"work\",\"date\":\"" + workRecord.getDate() +
+                "\",\"week\":" + week +
+                ",\"start\":\"" + FormatUtil.formatTime(workRecord.getStartTime()) +
+                "\",\"end\":\"" + FormatUtil.formatTime(workRecord.getEndTime()) +
+                "\",\"minutes\":" + minutes + "}\n");
+    }
+
+    @Override
+    protected void writeLeaveRecord(LeaveRecord leaveRecord, int week) throws IOException {
+        out.write("{\"type\":\"leave\",\"date\":\"" + leaveRecord.getDate() +
+                "\",\"week\":" + week +
+                ",\"reason\":\"" + leaveRecord.getReason() +
+                "\",\"workdays\":" + leaveRecord.getWorkdays() + "}\n");
+    }
+}
@@ -0,0 +1,163 @@
+package com.github.skyborla.worktime.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import jxl.Workbook;
+import jxl.format.Border;
+import jxl.format.BorderLineStyle;
+import jxl.format.Colour;
+import jxl.write.Label;
+import jxl.write.WritableCell;
+import jxl.write.WritableCellFormat;
+import jxl.write.WritableSheet;
+import jxl.write.WritableWorkbook;
+import jxl.write.WriteException;
+
+/**
+ * Writes an XLS workbook with jxl. The whole workbook is kept in memory until {@link #write()}.
+ * Rows have to be written in ascending order, so the border of a row can be applied as soon
+ * as the next row starts.
+ */
+class JxlWorkbookWriter implements WorkbookWriter {
+
+    private final WritableWorkbook workbook;
+
+    private final Map<RowMarker, WritableCellFormat> markerFormats =
+            new EnumMap<RowMarker, WritableCellFormat>(RowMarker.class);
+
+    JxlWorkbookWriter(OutputStream out) throws IOException {
+        workbook = Workbook.createWorkbook(out);
+
+        try {
+            markerFormats.put(RowMarker.WEEK_START, topBorder(Colour.GREY_50_PERCENT));
+            markerFormats.put(RowMarker.MONTH_START, topBorder(Colour.GREY_80_PERCENT));
+        } catch (WriteException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static WritableCellFormat topBorder(Colour colour) throws WriteException {
+        WritableCellFormat format = new WritableCellFormat();
+        format.setBorder(Border.TOP, BorderLineStyle.HAIR, colour);
+        return format;
+    }
+
+    @Override
+    public SheetWriter createSheet(String name, int frozenRows, int[] columnWidths) {
+        // newest sheet first
+        WritableSheet sheet = workbook.createSheet(name, 0);
+
+        sheet.getSettings().setVerticalFreeze(frozenRows);
+        for (int i = 0; i < columnWidths.length; i++) {
+            if (columnWidths[i] > 0) {
+                sheet.setColumnView(i, columnWidths[i]);
+            }
+        }
+
+        return new JxlSheetWriter(sheet);
+    }
+
+    @Override
+    public void write() throws IOException {
+        workbook.write();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            workbook.close();
+        } catch (WriteException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private class JxlSheetWriter implements SheetWriter {
+
+        private final WritableSheet sheet;
+
+        // cells of the current row; its border is applied when the row is left
+        private int row = -1;
+        private RowMarker marker;
+        private WritableCell[] rowCells = new WritableCell[16];
+
+        // rows with adjusted height; like the original export, the last row (the year summary)
+        // keeps the default height, so a row is adjusted when a later row starts
+        private int rowCount = 0;
+
+        JxlSheetWriter(WritableSheet sheet) {
+            this.sheet = sheet;
+        }
+
+        @Override
+        public void addLabel(int column, int row, String text) throws IOException {
+            moveTo(row);
+
+            if (column >= rowCells.length) {
+                rowCells = Arrays.copyOf(rowCells, Math.max(column + 1, rowCells.length * 2));
+            }
+
+            Label label = new Label(column, row, text);
+            try {
+                sheet.addCell(label);
+            } catch (WriteException e) {
+                throw new IOException(e);
+            }
+            rowCells[column] = label;
+        }
+
+        @Override
+        public void markRow(int row, RowMarker marker) throws IOException {
+            moveTo(row);
+            this.marker = marker;
+        }
+
+        private void moveTo(int row) throws IOException {
+            if (row < this.row) {
+                throw new IllegalStateException("row " + row + " already written");
+            }
+            if (row > this.row) {
+                completeRow();
+                this.row = row;
+
+                try {
+                    for (; rowCount < row; rowCount++) {
+                        sheet.setRowView(rowCount, 15 * 20);
+                    }
+                } catch (WriteException e) {
+                    throw new IOException(e);
+                }
+            }
+        }
+
+        private void completeRow() throws IOException {
+            if (marker != null) {
+                WritableCellFormat format = markerFormats.get(marker);
+
+                try {
+                    for (int col = marker.fromColumn; col < marker.untilColumn; col++) {
+                        WritableCell cell = col < rowCells.length ? rowCells[col] : null;
+                        if (cell == null) {
+                            sheet.addCell(new Label(col, row, "", format));
+                        } else {
+                            cell.setCellFormat(format);
+                        }
+                    }
+                } catch (WriteException e) {
+                    throw new IOException(e);
+                }
+            }
+
+            Arrays.fill(rowCells, null);
+            marker = null;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            completeRow();
+        }
+    }
+}
@@ -11,20 +11,9 @@ import com.github.skyborla.worktime.model.WorkRecord;
 
 import org.threeten.bp.LocalDate;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.List;
 
-import jxl.biff.EmptyCell;
-import jxl.format.Border;
-import jxl.format.BorderLineStyle;
-import jxl.format.Colour;
-import jxl.write.Label;
-import jxl.write.WritableCell;
-import jxl.write.WritableCellFormat;
-import jxl.write.WritableSheet;
-import jxl.write.WritableWorkbook;
-import jxl.write.WriteException;
-
 public class MonthExporter {
 
     private final static int COL_MONTH = 0;
@@ -43,33 +32,36 @@ public class MonthExporter {
 
     private final static int COL_SUM_LEAVE_BASE = 11;
 
-    private Context context;
-    private WritableSheet sheet;
-
-    private List<Integer> monthStartRows = new ArrayList<Integer>();
-    private List<Integer> weekStartRows = new ArrayList<Integer>();
+    private final static int[] COLUMN_WIDTHS = columnWidths();
 
-    private Summary yearSummary = new Summary();
+    private CellStrings strings;
+    private SheetWriter sheet;
+    private String name;
 
     private int rowCursor = 0;
 
-    private WritableCellFormat overLineFormatGrey80;
-    private WritableCellFormat overLineFormatGrey50;
+    public MonthExporter(Context context, WorkbookWriter workbook, String name) throws IOException {
+        this.strings = new CellStrings(context);
+        this.name = name;
+        sheet = workbook.createSheet(name, 1, COLUMN_WIDTHS);
 
-    public MonthExporter(Context context, WritableWorkbook workbook, String name) throws WriteException {
-        this.context = context;
-        sheet = workbook.createSheet(name, 0);
-
-        overLineFormatGrey80 = new WritableCellFormat();
-        overLineFormatGrey80.setBorder(Border.TOP, BorderLineStyle.HAIR, Colour.GREY_80_PERCENT);
+        writeHeaders();
+    }
 
-        overLineFormatGrey50 = new WritableCellFormat();
-        overLineFormatGrey50.setBorder(Border.TOP, BorderLineStyle.HAIR, Colour.GREY_50_PERCENT);
+    private static int[] columnWidths() {
+        int[] widths = new int[COL_SUM_LEAVE_BASE + LeaveReason.values().length];
+        widths[COL_MONTH] = 14;
+        widths[COL_WEEK] = 16;
+        widths[COL_LEAVE] = 14;
+        widths[COL_SUM_NAME] = 14;
 
-        writeHeaders();
+        for (int i = COL_SUM_DAY; i < widths.length; i++) {
+            widths[i] = 14;
+        }
+        return widths;
     }
 
-    private void writeHeaders() throws WriteException {
+    private void writeHeaders() throws IOException {
 
         appendLabel(COL_MONTH, "Monat");
         appendLabel(COL_WEEK, "Woche");
@@ -84,147 +76,118 @@ public class MonthExporter {
         rowCursor++;
     }
 
-    private void writeSummaryHeaders() throws WriteException {
+    private void writeSummaryHeaders() throws IOException {
         appendLabel(COL_SUM_DAY, "Sum. Tage");
         appendLabel(COL_SUM_DURATION, "Sum. Dauer");
 
         int i = COL_SUM_LEAVE_BASE;
         for (LeaveReason reason : LeaveReason.values()) {
-            appendLabel(i, "Sum. " + context.getString(reason.stringResource));
+            appendLabel(i, "Sum. " + strings.leaveLabel(reason));
             i++;
         }
     }
 
     public void writeMonth(LocalDate month, List<WorkRecord> workRecords, List<LeaveRecord> leaveRecords,
-                           List<LocalDate> holidays) throws WriteException {
+                           List<LocalDate> holidays) throws IOException {
+        appendMonth(renderMonth(month, workRecords, leaveRecords, holidays));
+    }
 
-        String monthName = FormatUtil.DATE_FORMAT_MONTH_FULL.format(month);
-        appendLabel(COL_MONTH, monthName);
-        int startRow = rowCursor;
+    /**
+     * Renders the rows of one month without writing them, so they can be cached and appended
+     * later with {@link #appendMonth}.
+     */
+    public MonthFragment renderMonth(LocalDate month, List<WorkRecord> workRecords, List<LeaveRecord> leaveRecords,
+                                     List<LocalDate> holidays) throws IOException {
 
+        final MonthFragment fragment = new MonthFragment();
+
+        String monthName = strings.monthName(month);
+        fragment.markRow(0, RowMarker.MONTH_START);
+        fragment.addLabel(COL_MONTH, 0, monthName);
+
+        // every processed record takes one row
         final Summary monthSummary = new Summary();
         new MergingListProcessor(workRecords, leaveRecords, holidays) {
             @Override
             protected void process(WorkRecord workRecord) {
-                try {
-                    appendLabel(COL_DATE, FormatUtil.DATE_FORMAT_SHORT.format(workRecord.getDate()));
-                    appendLabel(COL_DAY, FormatUtil.DATE_FORMAT_DAY.format(workRecord.getDate()));
+                int row = monthSummary.getAddedCount();
+                fragment.addLabel(COL_DATE, row, strings.shortDate(workRecord.getDate()));
+                fragment.addLabel(COL_DAY, row, strings.weekday(workRecord.getDate()));
 
-                    appendLabel(COL_START_TIME, FormatUtil.TIME_FORMAT.format(workRecord.getStartTime()));
-                    appendLabel(COL_END_TIME, FormatUtil.TIME_FORMAT.format(workRecord.getEndTime()));
+                fragment.addLabel(COL_START_TIME, row, strings.time(workRecord.getStartTime()));
+                fragment.addLabel(COL_END_TIME, row, strings.time(workRecord.getEndTime()));
 
-                    appendLabel(COL_DURATION, FormatUtil.formatDuration(workRecord));
+                fragment.addLabel(COL_DURATION, row, strings.duration(workRecord));
 
-                    monthSummary.add(workRecord);
-                    yearSummary.add(workRecord);
-                    rowCursor++;
-                } catch (WriteException e) {
-                    throw new RuntimeException(e);
-                }
+                monthSummary.add(workRecord);
             }
 
             @Override
             protected void process(LeaveRecord leaveRecord) {
-                try {
-                    appendLabel(COL_DATE, FormatUtil.DATE_FORMAT_SHORT.format(leaveRecord.getDate()));
-                    appendLabel(COL_DAY, FormatUtil.DATE_FORMAT_DAY.format(leaveRecord.getDate()));
+                int row = monthSummary.getAddedCount();
+                fragment.addLabel(COL_DATE, row, strings.shortDate(leaveRecord.getDate()));
+                fragment.addLabel(COL_DAY, row, strings.weekday(leaveRecord.getDate()));
 
-                    appendLabel(COL_LEAVE, context.getString(leaveRecord.getReason().stringResource));
+                fragment.addLabel(COL_LEAVE, row, strings.leaveLabel(leaveRecord.getReason()));
 
-                    monthSummary.add(leaveRecord);
-                    yearSummary.add(leaveRecord);
-                    rowCursor++;
-                } catch (WriteException e) {
-                    e.printStackTrace();
-                }
+                monthSummary.add(leaveRecord);
             }
 
             @Override
             protected void newWeek(int week) {
-                try {
-                    appendLabel(COL_WEEK, "KW " + week);
-                    weekStartRows.add(rowCursor);
-                } catch (WriteException e) {
-                    throw new RuntimeException(e);
+                int row = monthSummary.getAddedCount();
+
+                // the month start marker already covers the week columns
+                if (row != 0) {
+                    fragment.markRow(row, RowMarker.WEEK_START);
                 }
+                fragment.addLabel(COL_WEEK, row, strings.week(week));
             }
         }.process();
 
+        int summaryRow = monthSummary.getAddedCount() - 1;
+        writeSummary(fragment, monthSummary, monthName, summaryRow);
+
+        fragment.setRowCount(monthSummary.getAddedCount());
+        return fragment;
+    }
 
-        monthStartRows.add(startRow);
-        int summaryRow = startRow + monthSummary.getAddedCount() - 1;
-        writeSummary(monthSummary, monthName, summaryRow);
+    public void appendMonth(MonthFragment fragment) throws IOException {
+        fragment.writeTo(sheet, rowCursor);
+        rowCursor += fragment.getRowCount();
     }
 
-    private void writeSummary(Summary summary, String name, int summaryRow) throws WriteException {
-        appendLabel(COL_SUM_NAME, summaryRow, name);
-        appendLabel(COL_SUM_DAY, summaryRow, Integer.toString(summary.getWorkedDays()));
-        appendLabel(COL_SUM_DURATION, summaryRow, FormatUtil.formatDuration(summary.getTotalWorkedSeconds()));
+    private void writeSummary(SheetWriter target, Summary summary, String name, int summaryRow) throws IOException {
+        target.addLabel(COL_SUM_NAME, summaryRow, name);
+        target.addLabel(COL_SUM_DAY, summaryRow, Integer.toString(summary.getWorkedDays()));
+        target.addLabel(COL_SUM_DURATION, summaryRow, FormatUtil.formatDuration(summary.getTotalWorkedSeconds()));
 
         int i = COL_SUM_LEAVE_BASE;
         for (LeaveReason reason : LeaveReason.values()) {
-            appendLabel(i, summaryRow, Integer.toString(summary.getLeaveCounter(reason)));
+            target.addLabel(i, summaryRow, Integer.toString(summary.getLeaveCounter(reason)));
             i++;
         }
     }
 
-    private void appendLabel(int column, int row, String string) throws WriteException {
-        sheet.addCell(new Label(column, row, string));
+    private void appendLabel(int column, int row, String string) throws IOException {
+        sheet.addLabel(column, row, string);
     }
 
-    private void appendLabel(int column, String string) throws WriteException {
+    private void appendLabel(int column, String string) throws IOException {
         appendLabel(column, rowCursor, string);
     }
 
-    public void finalizeSheet() throws WriteException {
+    /**
+     * Writes the summary of the exported months of the year below them, the summary is
+     * computed by the caller, e.g. by the database.
+     */
+    public void finalizeSheet(Summary yearSummary) throws IOException {
 
         rowCursor += 2;
         writeSummaryHeaders();
         rowCursor++;
-        writeSummary(yearSummary, "Jahr " + sheet.getName(), rowCursor);
-
-        // Freeze first row
-        sheet.getSettings().setVerticalFreeze(1);
-
-        // adjust column widths
-        sheet.setColumnView(COL_MONTH, 14);
-        sheet.setColumnView(COL_WEEK, 16);
-        sheet.setColumnView(COL_LEAVE, 14);
-        sheet.setColumnView(COL_SUM_NAME, 14);
-
-        for (int i = COL_SUM_DAY; i < COL_SUM_LEAVE_BASE + LeaveReason.values().length; i++) {
-            sheet.setColumnView(i, 14);
-        }
-
-        // adjust row heights
-        for (int i = 0; i < rowCursor; i++) {
-            sheet.setRowView(i, 15 * 20);
-        }
-
-        // markers for weekstart
-        weekStartRows.removeAll(monthStartRows);
-        for (Integer weekStartRow : weekStartRows) {
-            for (int i = 1; i < 8; i++) {
-                formatCell(i, weekStartRow, overLineFormatGrey50);
-            }
-        }
-
-        // markers for month start
-        for (Integer monthStartRow : monthStartRows) {
-            for (int i = 0; i < 16; i++) {
-                formatCell(i, monthStartRow, overLineFormatGrey80);
-            }
-        }
-    }
-
-    private void formatCell(int col, int row, WritableCellFormat format) throws WriteException {
-        WritableCell wc = sheet.getWritableCell(col, row);
-
-        if (wc instanceof EmptyCell) {
-            wc = new Label(col, row, "");
-            sheet.addCell(wc);
-        }
+        writeSummary(sheet, yearSummary, "Jahr " + name, rowCursor);
 
-        wc.setCellFormat(format);
+        sheet.finish();
     }
-}
\ No newline at end of file
+}
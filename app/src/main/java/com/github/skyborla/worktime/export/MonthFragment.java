@@ -0,0 +1,62 @@
+package com.github.skyborla.worktime.export;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The rendered rows of one month, numbered from the first row of the month, including the
+ * month summary row. See {@link MonthExporter#renderMonth}.
+ */
+public class MonthFragment implements SheetWriter {
+
+    private final CellLog cells;
+    private int rowCount;
+
+    MonthFragment() {
+        this(new CellLog());
+    }
+
+    private MonthFragment(CellLog cells) {
+        this.cells = cells;
+    }
+
+    @Override
+    public void addLabel(int column, int row, String text) {
+        cells.addLabel(column, row, text);
+    }
+
+    @Override
+    public void markRow(int row, RowMarker marker) {
+        cells.markRow(row, marker);
+    }
+
+    @Override
+    public void finish() {
+    }
+
+    void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    void writeTo(SheetWriter sheet, int startRow) throws IOException {
+        cells.replay(sheet, startRow);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(rowCount);
+        cells.writeTo(out);
+    }
+
+    static MonthFragment readFrom(DataInput in) throws IOException {
+        int rowCount = in.readInt();
+
+        MonthFragment fragment = new MonthFragment(CellLog.readFrom(in));
+        fragment.setRowCount(rowCount);
+        return fragment;
+    }
+}
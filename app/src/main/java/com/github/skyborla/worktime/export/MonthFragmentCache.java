@@ -0,0 +1,126 @@
+package com.github.skyborla.worktime.export;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Rendered months on disk, keyed by month (yyyymm) and content version, so an export only
+ * renders the months changed since the last one. Versions come from
+ * {@link com.github.skyborla.worktime.model.DataSource#getMonthVersions()}.
+ */
+public class MonthFragmentCache {
+
+    // bump whenever MonthExporter renders months differently
+    // 2: row count instead of the month summary
+    private static final int FORMAT = 2;
+
+    private static final String SUFFIX = ".month";
+
+    private final File directory;
+    private final String renderKey;
+
+    /**
+     * @param renderKey everything else the rendering depends on, e.g. the locale;
+     *                  fragments rendered under another key are not used
+     */
+    public MonthFragmentCache(File directory, String renderKey) {
+        this.directory = directory;
+        this.renderKey = renderKey;
+    }
+
+    /**
+     * @return the cached fragment, or null if there is none for this version
+     */
+    public MonthFragment get(int month, long version) {
+        File file = fileOf(month, version);
+        if (!file.exists()) {
+            return null;
+        }
+
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (in.readInt() != FORMAT || !in.readUTF().equals(renderKey)) {
+                    return null;
+                }
+                return MonthFragment.readFrom(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Stores the fragment. Failures only cost a new rendering next time, so they are not reported.
+     */
+    public void put(int month, long version, MonthFragment fragment) {
+        File file = fileOf(month, version);
+        File temp = new File(directory, file.getName() + ".tmp");
+
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                return;
+            }
+
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                out.writeInt(FORMAT);
+                out.writeUTF(renderKey);
+                fragment.writeTo(out);
+            } finally {
+                out.close();
+            }
+
+            if (!temp.renameTo(file)) {
+                temp.delete();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            temp.delete();
+        }
+    }
+
+    /**
+     * Deletes the fragments of all other months and versions.
+     */
+    public void retain(Map<Integer, Long> versions) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            String name = file.getName();
+            int separator = name.indexOf('_');
+
+            boolean current = false;
+            if (separator > 0 && name.endsWith(SUFFIX)) {
+                try {
+                    Long version = versions.get(Integer.parseInt(name.substring(0, separator)));
+                    current = version != null &&
+                            version == Long.parseLong(name.substring(separator + 1, name.length() - SUFFIX.length()));
+                } catch (NumberFormatException e) {
+                    current = false;
+                }
+            }
+
+            if (!current) {
+                file.delete();
+            }
+        }
+    }
+
+    private File fileOf(int month, long version) {
+        return new File(directory, month + "_" + version + SUFFIX);
+    }
+}
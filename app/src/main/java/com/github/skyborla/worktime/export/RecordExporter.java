@@ -0,0 +1,81 @@
+package com.github.skyborla.worktime.export;
+
+import com.github.skyborla.worktime.model.LeaveRecord;
+import com.github.skyborla.worktime.model.MergingListProcessor;
+import com.github.skyborla.worktime.model.MonthScanListener;
+import com.github.skyborla.worktime.model.WorkRecord;
+
+import org.threeten.bp.LocalDate;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Streams records into a flat text format, one line per record in date order. The months are
+ * merged by a {@link MergingListProcessor}, so leave records on holidays are left out as in
+ * the workbook export.
+ */
+public abstract class RecordExporter implements MonthScanListener, Closeable {
+
+    protected final Writer out;
+
+    private int week;
+
+    protected RecordExporter(OutputStream out) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"));
+    }
+
+    @Override
+    public void onMonth(LocalDate month, List<WorkRecord> workRecords, List<LeaveRecord> leaveRecords,
+                        List<LocalDate> holidays) throws IOException {
+        try {
+            new MergingListProcessor(workRecords, leaveRecords, holidays) {
+                @Override
+                protected void process(WorkRecord workRecord) {
+                    try {
+                        writeWorkRecord(workRecord, week);
+                    } catch (IOException e) {
+                        throw new WriteFailure(e);
+                    }
+                }
+
+                @Override
+                protected void process(LeaveRecord leaveRecord) {
+                    try {
+                        writeLeaveRecord(leaveRecord, week);
+                    } catch (IOException e) {
+                        throw new WriteFailure(e);
+                    }
+                }
+
+                @Override
+                protected void newWeek(int week) {
+                    RecordExporter.this.week = week;
+                }
+            }.process();
+        } catch (WriteFailure e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
+    protected abstract void writeWorkRecord(WorkRecord workRecord, int week) throws IOException;
+
+    protected abstract void writeLeaveRecord(LeaveRecord leaveRecord, int week) throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    // carries write errors out of the processor callbacks
+    private static class WriteFailure extends RuntimeException {
+        WriteFailure(IOException cause) {
+            super(cause);
+        }
+    }
+}
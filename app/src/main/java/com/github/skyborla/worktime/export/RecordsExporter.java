@@ -3,10 +3,14 @@ package com.github.skyborla.worktime.export;
 import android.content.Context;
 import android.net.Uri;
 import android.support.v4.content.FileProvider;
+import android.util.Log;
 
 import com.github.skyborla.worktime.FormatUtil;
+import com.github.skyborla.worktime.model.DB;
 import com.github.skyborla.worktime.model.DataSource;
 import com.github.skyborla.worktime.model.LeaveRecord;
+import com.github.skyborla.worktime.model.MonthScanListener;
+import com.github.skyborla.worktime.model.Summary;
 import com.github.skyborla.worktime.model.WorkRecord;
 
 import org.jdeferred.android.DeferredAsyncTask;
@@ -14,84 +18,347 @@ import org.threeten.bp.LocalDate;
 import org.threeten.bp.LocalDateTime;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-
-import jxl.Workbook;
-import jxl.write.WritableWorkbook;
-import jxl.write.WriteException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by Sebastian on 21.09.2014.
  */
-public class RecordsExporter extends DeferredAsyncTask<Void, Void, Uri> {
+public class RecordsExporter extends DeferredAsyncTask<Void, ExportProgress, Uri> {
+
+    private final static String TAG = "RecordsExporter";
 
     private final static String FILENAME_IDENTIFIER = "arbeitszeit-export";
 
+    // upper bound for the threads producing year sheets
+    private final static int MAX_THREADS = 4;
+
+    private final static String FRAGMENT_DIRECTORY = "export-months";
+
     private Context context;
+    private ExportFormat format;
+    private LocalDate fromMonth;
+    private LocalDate untilMonth;
     private DataSource dataSource;
 
-    public RecordsExporter(Context context, DataSource dataSource) {
+    private MonthFragmentCache fragmentCache;
+    // content version of every month (yyyymm)
+    private Map<Integer, Long> monthVersions;
+    // summaries of the exported months per year
+    private Map<Integer, Summary> yearSummaries;
+
+    private ExportTiming timing;
+    private int totalMonths;
+    private final AtomicInteger exportedMonths = new AtomicInteger();
+    private final AtomicInteger cachedMonths = new AtomicInteger();
+
+    public RecordsExporter(Context context, ExportFormat format) {
+        this(context, format, null, null);
+    }
+
+    /**
+     * Exports the months from the month of fromDate until the month of untilDate, both
+     * included. Null leaves the range open at that end.
+     */
+    public RecordsExporter(Context context, ExportFormat format, LocalDate fromDate, LocalDate untilDate) {
         this.context = context;
-        this.dataSource = dataSource;
+        this.format = format;
+        this.fromMonth = fromDate == null ? null : fromDate.withDayOfMonth(1);
+        this.untilMonth = untilDate == null ? null : untilDate.withDayOfMonth(1);
+
+        File directory = new File(context.getCacheDir(), FRAGMENT_DIRECTORY);
+        fragmentCache = new MonthFragmentCache(directory, Locale.getDefault().toString());
     }
 
+    /**
+     * Exports can be cancelled with {@code cancel(true)}; the partial file is deleted and the
+     * promise is rejected with a CancellationException.
+     */
     @Override
     protected Uri doInBackgroundSafe(Void... voids) throws Exception {
-        long start = System.currentTimeMillis();
+        timing = new ExportTiming();
 
         cleanupOldFiles();
 
         String timeFormat = LocalDateTime.now().format(FormatUtil.DATE_FORMAT_FILE);
-        File file = new File(context.getCacheDir(), timeFormat + "_" + FILENAME_IDENTIFIER + ".xls");
-        List<LocalDate> months = dataSource.getMonths();
-
-        WritableWorkbook workbook = Workbook.createWorkbook(file);
+        File file = new File(context.getCacheDir(), timeFormat + "_" + FILENAME_IDENTIFIER + "." + format.extension);
+        // hold a reference of our own, the activity may go away while exporting
+        dataSource = DataSource.acquire(context);
+        boolean completed = false;
         try {
-            exportMonths(months, workbook);
-            workbook.write();
+            // versions first: a month changed after this still gets a new version
+            Map<Integer, Long> versions = dataSource.getMonthVersions();
+            List<LocalDate> months = new ArrayList<LocalDate>();
+
+            monthVersions = new HashMap<Integer, Long>();
+            for (LocalDate month : dataSource.getMonths()) {
+                Long version = versions.get(DB.toDBMonth(month));
+                monthVersions.put(DB.toDBMonth(month), version == null ? 0L : version);
+
+                if ((fromMonth == null || !month.isBefore(fromMonth)) && (untilMonth == null || !month.isAfter(untilMonth))) {
+                    months.add(month);
+                }
+            }
+            totalMonths = months.size();
+
+            OutputStream out = new FileOutputStream(file);
+            try {
+                if (format.workbook) {
+                    WorkbookWriter workbook = format.createWriter(out);
+                    try {
+                        exportMonths(months, workbook);
+
+                        long writeStart = System.nanoTime();
+                        workbook.write();
+                        timing.add(ExportTiming.Phase.WRITE, System.nanoTime() - writeStart);
+                    } finally {
+                        workbook.close();
+                    }
+                } else {
+                    exportRecords(months, out);
+                }
+            } finally {
+                out.close();
+            }
+
+            checkCancelled();
+            completed = true;
+
+            fragmentCache.retain(monthVersions);
         } finally {
-            workbook.close();
+            dataSource.release();
+
+            if (!completed) {
+                file.delete();
+            }
         }
 
         Uri uri = FileProvider.getUriForFile(context, "com.github.skyborla.worktime.records", file);
 
-        System.out.println("EXPORT " + (System.currentTimeMillis() - start));
+        timing.finish(exportedMonths.get(), cachedMonths.get());
+        Log.d(TAG, "export " + timing);
         return uri;
     }
 
-    private void exportMonths(List<LocalDate> months, WritableWorkbook workbook) throws WriteException, IOException {
-        int lastYear = -1;
-        MonthExporter exporter = null;
+    /**
+     * Timing of the last export, complete once the promise is resolved.
+     */
+    public ExportTiming getTiming() {
+        return timing;
+    }
 
-        for (LocalDate month : months) {
+    private void checkCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException();
+        }
+    }
 
-            int thisYear = month.getYear();
-            if (thisYear != lastYear) {
-                if (exporter != null) {
-                    exporter.finalizeSheet();
+    private void monthExported() {
+        notify(new ExportProgress(exportedMonths.incrementAndGet(), totalMonths));
+    }
+
+    /**
+     * A workbook kept in memory anyway (XLS) gets its year sheets produced in parallel on a
+     * bounded pool, buffered, and copied into the workbook in order; at most one sheet per
+     * thread is held ahead of the writer. A streaming workbook (XLSX) gets its years written
+     * one after the other straight into it, so only its current row is held.
+     */
+    private void exportMonths(List<LocalDate> months, WorkbookWriter workbook)
+            throws IOException, InterruptedException, ExecutionException {
+
+        List<List<LocalDate>> years = groupByYear(months);
+        if (years.isEmpty()) {
+            return;
+        }
+
+        long summaryStart = System.nanoTime();
+        yearSummaries = dataSource.getYearSummaries(
+                FormatUtil.DATE_FORMAT_DB_MONTH.format(months.get(0)),
+                FormatUtil.DATE_FORMAT_DB_MONTH.format(months.get(months.size() - 1)));
+        timing.add(ExportTiming.Phase.QUERY, System.nanoTime() - summaryStart);
+
+        int threads = Math.min(years.size(), Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+        if (!format.inMemory || threads <= 1) {
+            for (List<LocalDate> year : years) {
+                checkCancelled();
+                exportYear(year, workbook);
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<SheetBuffer>> sheets = new ArrayList<Future<SheetBuffer>>();
+
+            for (int i = 0; i < years.size(); i++) {
+                checkCancelled();
+
+                while (sheets.size() < years.size() && sheets.size() < i + threads) {
+                    final List<LocalDate> year = years.get(sheets.size());
+                    sheets.add(executor.submit(new Callable<SheetBuffer>() {
+                        @Override
+                        public SheetBuffer call() throws Exception {
+                            SheetBuffer sheet = new SheetBuffer();
+                            exportYear(year, sheet);
+                            return sheet;
+                        }
+                    }));
                 }
 
-                exporter = new MonthExporter(context, workbook, Integer.toString(thisYear));
-                lastYear = thisYear;
+                SheetBuffer sheet = sheets.get(i).get();
+
+                long writeStart = System.nanoTime();
+                sheet.copyTo(workbook);
+                timing.add(ExportTiming.Phase.WRITE, System.nanoTime() - writeStart);
+
+                // let the buffer go
+                sheets.set(i, null);
             }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-            appendMonth(exporter, month);
+    /**
+     * The flat formats need no sheets, all months are streamed from one scan.
+     */
+    private void exportRecords(List<LocalDate> months, OutputStream out) throws IOException {
+        final RecordExporter exporter = format.createRecordExporter(context, out);
+        try {
+            if (!months.isEmpty()) {
+                String fromMonth = FormatUtil.DATE_FORMAT_DB_MONTH.format(months.get(0));
+                String untilMonth = FormatUtil.DATE_FORMAT_DB_MONTH.format(months.get(months.size() - 1));
+
+                // records are merged, formatted and written in one go
+                final long[] listenerNanos = new long[1];
+                long scanStart = System.nanoTime();
+                dataSource.scanMonths(fromMonth, untilMonth, new MonthScanListener() {
+                    @Override
+                    public void onMonth(LocalDate month, List<WorkRecord> workRecords, List<LeaveRecord> leaveRecords,
+                                        List<LocalDate> holidays) throws IOException {
+                        checkCancelled();
+
+                        long renderStart = System.nanoTime();
+                        exporter.onMonth(month, workRecords, leaveRecords, holidays);
+                        listenerNanos[0] += System.nanoTime() - renderStart;
+
+                        monthExported();
+                    }
+                });
+                timing.add(ExportTiming.Phase.QUERY, System.nanoTime() - scanStart - listenerNanos[0]);
+                timing.add(ExportTiming.Phase.RENDER, listenerNanos[0]);
+            }
+        } finally {
+            long writeStart = System.nanoTime();
+            exporter.close();
+            timing.add(ExportTiming.Phase.WRITE, System.nanoTime() - writeStart);
         }
+    }
+
+    private List<List<LocalDate>> groupByYear(List<LocalDate> months) {
+        List<List<LocalDate>> years = new ArrayList<List<LocalDate>>();
 
-        if (exporter != null) {
-            exporter.finalizeSheet();
+        int lastYear = -1;
+        for (LocalDate month : months) {
+            int thisYear = month.getYear();
+            if (thisYear != lastYear) {
+                years.add(new ArrayList<LocalDate>());
+                lastYear = thisYear;
+            }
+
+            years.get(years.size() - 1).add(month);
         }
+
+        return years;
     }
 
-    private void appendMonth(MonthExporter exporter, LocalDate month) throws WriteException {
-        String formattedMonth = FormatUtil.DATE_FORMAT_DB_MONTH.format(month);
+    /**
+     * Months unchanged since an earlier export are taken from the fragment cache, the others
+     * are rendered from one scan over their range and cached.
+     */
+    private void exportYear(List<LocalDate> months, WorkbookWriter workbook) throws IOException {
+        final MonthExporter exporter = new MonthExporter(context, workbook, Integer.toString(months.get(0).getYear()));
+        final Map<Integer, MonthFragment> fragments = new HashMap<Integer, MonthFragment>();
 
-        List<WorkRecord> workRecords = dataSource.getWorkRecords(formattedMonth);
-        List<LeaveRecord> leaveRecords = dataSource.getLeaveRecords(formattedMonth);
-        List<LocalDate> holidays = dataSource.getHolidays(formattedMonth);
-        exporter.writeMonth(month, workRecords, leaveRecords, holidays);
+        long cacheStart = System.nanoTime();
+        LocalDate firstChanged = null;
+        LocalDate lastChanged = null;
+        for (LocalDate month : months) {
+            checkCancelled();
+
+            int dbMonth = DB.toDBMonth(month);
+            MonthFragment fragment = fragmentCache.get(dbMonth, monthVersions.get(dbMonth));
+
+            if (fragment != null) {
+                fragments.put(dbMonth, fragment);
+                cachedMonths.incrementAndGet();
+                monthExported();
+            } else {
+                if (firstChanged == null) {
+                    firstChanged = month;
+                }
+                lastChanged = month;
+            }
+        }
+        timing.add(ExportTiming.Phase.RENDER, System.nanoTime() - cacheStart);
+
+        if (firstChanged != null) {
+            String fromMonth = FormatUtil.DATE_FORMAT_DB_MONTH.format(firstChanged);
+            String untilMonth = FormatUtil.DATE_FORMAT_DB_MONTH.format(lastChanged);
+
+            final long[] listenerNanos = new long[1];
+            long scanStart = System.nanoTime();
+            dataSource.scanMonths(fromMonth, untilMonth, new MonthScanListener() {
+                @Override
+                public void onMonth(LocalDate month, List<WorkRecord> workRecords, List<LeaveRecord> leaveRecords,
+                                    List<LocalDate> holidays) throws IOException {
+                    checkCancelled();
+
+                    int dbMonth = DB.toDBMonth(month);
+                    Long version = monthVersions.get(dbMonth);
+
+                    // cached months in between, or a month added after the export started
+                    if (fragments.containsKey(dbMonth) || version == null) {
+                        return;
+                    }
+
+                    long renderStart = System.nanoTime();
+                    MonthFragment fragment = exporter.renderMonth(month, workRecords, leaveRecords, holidays);
+                    fragmentCache.put(dbMonth, version, fragment);
+                    fragments.put(dbMonth, fragment);
+                    listenerNanos[0] += System.nanoTime() - renderStart;
+
+                    monthExported();
+                }
+            });
+            timing.add(ExportTiming.Phase.QUERY, System.nanoTime() - scanStart - listenerNanos[0]);
+            timing.add(ExportTiming.Phase.RENDER, listenerNanos[0]);
+        }
+
+        long appendStart = System.nanoTime();
+        for (LocalDate month : months) {
+            MonthFragment fragment = fragments.get(DB.toDBMonth(month));
+            if (fragment != null) {
+                exporter.appendMonth(fragment);
+            }
+        }
+        Summary yearSummary = yearSummaries.get(months.get(0).getYear());
+        exporter.finalizeSheet(yearSummary == null ? new Summary() : yearSummary);
+        timing.add(ExportTiming.Phase.RENDER, System.nanoTime() - appendStart);
     }
 
     private void cleanupOldFiles() {
@@ -0,0 +1,18 @@
+package com.github.skyborla.worktime.export;
+
+/**
+ * Top border drawn over the cells [fromColumn, untilColumn) of a row.
+ */
+public enum RowMarker {
+
+    WEEK_START(1, 8),
+    MONTH_START(0, 16);
+
+    public final int fromColumn;
+    public final int untilColumn;
+
+    RowMarker(int fromColumn, int untilColumn) {
+        this.fromColumn = fromColumn;
+        this.untilColumn = untilColumn;
+    }
+}
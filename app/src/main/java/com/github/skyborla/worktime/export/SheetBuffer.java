@@ -0,0 +1,68 @@
+package com.github.skyborla.worktime.export;
+
+import java.io.IOException;
+
+/**
+ * Workbook of a single sheet kept in memory, so that a sheet can be produced on another
+ * thread and copied into the real workbook later, in order.
+ */
+class SheetBuffer implements WorkbookWriter, SheetWriter {
+
+    private String name;
+    private int frozenRows;
+    private int[] columnWidths;
+
+    private final CellLog cells = new CellLog();
+    private boolean finished = false;
+
+    @Override
+    public SheetWriter createSheet(String name, int frozenRows, int[] columnWidths) {
+        if (this.name != null) {
+            throw new IllegalStateException("a sheet buffer holds only one sheet");
+        }
+
+        this.name = name;
+        this.frozenRows = frozenRows;
+        this.columnWidths = columnWidths;
+        return this;
+    }
+
+    @Override
+    public void addLabel(int column, int row, String text) {
+        cells.addLabel(column, row, text);
+    }
+
+    @Override
+    public void markRow(int row, RowMarker marker) {
+        cells.markRow(row, marker);
+    }
+
+    @Override
+    public void finish() {
+        finished = true;
+    }
+
+    @Override
+    public void write() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Creates the buffered sheet in the given workbook and replays all cells and markers.
+     */
+    public void copyTo(WorkbookWriter workbook) throws IOException {
+        if (name == null) {
+            return;
+        }
+
+        SheetWriter sheet = workbook.createSheet(name, frozenRows, columnWidths);
+        cells.replay(sheet, 0);
+
+        if (finished) {
+            sheet.finish();
+        }
+    }
+}
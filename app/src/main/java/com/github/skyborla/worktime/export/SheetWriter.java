@@ -0,0 +1,16 @@
+package com.github.skyborla.worktime.export;
+
+import java.io.IOException;
+
+/**
+ * One sheet of a {@link WorkbookWriter}. Streaming implementations only keep the row last
+ * written to, so cells and markers must not be added to a row before that.
+ */
+public interface SheetWriter {
+
+    void addLabel(int column, int row, String text) throws IOException;
+
+    void markRow(int row, RowMarker marker) throws IOException;
+
+    void finish() throws IOException;
+}
@@ -0,0 +1,18 @@
+package com.github.skyborla.worktime.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destination of an export. Sheets are written one after the other, a sheet has to be
+ * finished before the next one is created.
+ */
+public interface WorkbookWriter extends Closeable {
+
+    /**
+     * @param columnWidths width in characters per column, 0 keeps the default width
+     */
+    SheetWriter createSheet(String name, int frozenRows, int[] columnWidths) throws IOException;
+
+    void write() throws IOException;
+}
@@ -0,0 +1,282 @@
+package com.github.skyborla.worktime.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams an XLSX (SpreadsheetML) workbook. Each sheet is written into the zip as its rows
+ * come in and only the row last written to is kept, so memory does not grow with the number
+ * of records. Strings are written inline, which avoids a shared string table.
+ */
+class XlsxWorkbookWriter implements WorkbookWriter {
+
+    private static final String NS_MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String NS_RELATIONSHIPS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String NS_PACKAGE_RELATIONSHIPS = "http://schemas.openxmlformats.org/package/2006/relationships";
+    private static final String CONTENT_TYPE_BASE = "application/vnd.openxmlformats-officedocument.spreadsheetml.";
+
+    // top border colours of the row markers, in enum order; style i + 1 is marker i
+    private static final String[] MARKER_COLOURS = {"FF808080", "FF333333"};
+
+    private final ZipOutputStream zip;
+    private final Writer out;
+
+    private final List<String> sheetNames = new ArrayList<String>();
+    private XlsxSheetWriter openSheet;
+
+    XlsxWorkbookWriter(OutputStream out) throws IOException {
+        zip = new ZipOutputStream(out);
+        this.out = new BufferedWriter(new OutputStreamWriter(zip, "UTF-8"));
+    }
+
+    @Override
+    public SheetWriter createSheet(String name, int frozenRows, int[] columnWidths) throws IOException {
+        if (openSheet != null) {
+            throw new IllegalStateException("sheet " + sheetNames.get(sheetNames.size() - 1) + " not finished");
+        }
+
+        sheetNames.add(name);
+        beginEntry("xl/worksheets/sheet" + sheetNames.size() + ".xml");
+
+        out.write("<worksheet xmlns=\"" + NS_MAIN + "\">");
+        if (frozenRows > 0) {
+            out.write("<sheetViews><sheetView workbookViewId=\"0\">");
+            out.write("<pane ySplit=\"" + frozenRows + "\" topLeftCell=\"A" + (frozenRows + 1) +
+                    "\" activePane=\"bottomLeft\" state=\"frozen\"/>");
+            out.write("</sheetView></sheetViews>");
+        }
+        out.write("<sheetFormatPr defaultRowHeight=\"15\" customHeight=\"1\"/>");
+
+        boolean hasWidths = false;
+        for (int i = 0; i < columnWidths.length; i++) {
+            if (columnWidths[i] > 0) {
+                out.write(hasWidths ? "" : "<cols>");
+                out.write("<col min=\"" + (i + 1) + "\" max=\"" + (i + 1) + "\" width=\"" + columnWidths[i] +
+                        "\" customWidth=\"1\"/>");
+                hasWidths = true;
+            }
+        }
+        out.write(hasWidths ? "</cols>" : "");
+
+        out.write("<sheetData>");
+
+        openSheet = new XlsxSheetWriter();
+        return openSheet;
+    }
+
+    @Override
+    public void write() throws IOException {
+        if (openSheet != null) {
+            openSheet.finish();
+        }
+
+        beginEntry("[Content_Types].xml");
+        out.write("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">");
+        out.write("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>");
+        out.write("<Default Extension=\"xml\" ContentType=\"application/xml\"/>");
+        out.write("<Override PartName=\"/xl/workbook.xml\" ContentType=\"" + CONTENT_TYPE_BASE + "sheet.main+xml\"/>");
+        out.write("<Override PartName=\"/xl/styles.xml\" ContentType=\"" + CONTENT_TYPE_BASE + "styles+xml\"/>");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            out.write("<Override PartName=\"/xl/worksheets/sheet" + i + ".xml\" ContentType=\"" +
+                    CONTENT_TYPE_BASE + "worksheet+xml\"/>");
+        }
+        out.write("</Types>");
+        endEntry();
+
+        beginEntry("_rels/.rels");
+        out.write("<Relationships xmlns=\"" + NS_PACKAGE_RELATIONSHIPS + "\">");
+        out.write("<Relationship Id=\"rId1\" Type=\"" + NS_RELATIONSHIPS + "/officeDocument\" Target=\"xl/workbook.xml\"/>");
+        out.write("</Relationships>");
+        endEntry();
+
+        beginEntry("xl/_rels/workbook.xml.rels");
+        out.write("<Relationships xmlns=\"" + NS_PACKAGE_RELATIONSHIPS + "\">");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            out.write("<Relationship Id=\"rId" + i + "\" Type=\"" + NS_RELATIONSHIPS + "/worksheet\" Target=\"worksheets/sheet" + i + ".xml\"/>");
+        }
+        out.write("<Relationship Id=\"rId" + (sheetNames.size() + 1) + "\" Type=\"" + NS_RELATIONSHIPS + "/styles\" Target=\"styles.xml\"/>");
+        out.write("</Relationships>");
+        endEntry();
+
+        beginEntry("xl/workbook.xml");
+        out.write("<workbook xmlns=\"" + NS_MAIN + "\" xmlns:r=\"" + NS_RELATIONSHIPS + "\"><sheets>");
+        // newest sheet first, like the jxl export
+        for (int i = sheetNames.size(); i >= 1; i--) {
+            out.write("<sheet name=\"");
+            writeEscaped(sheetNames.get(i - 1));
+            out.write("\" sheetId=\"" + i + "\" r:id=\"rId" + i + "\"/>");
+        }
+        out.write("</sheets></workbook>");
+        endEntry();
+
+        beginEntry("xl/styles.xml");
+        out.write("<styleSheet xmlns=\"" + NS_MAIN + "\">");
+        out.write("<fonts count=\"1\"><font><sz val=\"10\"/><name val=\"Arial\"/></font></fonts>");
+        out.write("<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>" +
+                "<fill><patternFill patternType=\"gray125\"/></fill></fills>");
+        out.write("<borders count=\"" + (MARKER_COLOURS.length + 1) + "\"><border/>");
+        for (String colour : MARKER_COLOURS) {
+            out.write("<border><left/><right/><top style=\"hair\"><color rgb=\"" + colour + "\"/></top><bottom/><diagonal/></border>");
+        }
+        out.write("</borders>");
+        out.write("<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>");
+        out.write("<cellXfs count=\"" + (MARKER_COLOURS.length + 1) + "\">");
+        for (int i = 0; i <= MARKER_COLOURS.length; i++) {
+            out.write("<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"" + i + "\" xfId=\"0\"" +
+                    (i > 0 ? " applyBorder=\"1\"" : "") + "/>");
+        }
+        out.write("</cellXfs>");
+        out.write("<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>");
+        out.write("</styleSheet>");
+        endEntry();
+
+        zip.finish();
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+
+    private void beginEntry(String name) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+    }
+
+    private void endEntry() throws IOException {
+        out.flush();
+        zip.closeEntry();
+    }
+
+    private void writeEscaped(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    out.write("&amp;");
+                    break;
+                case '<':
+                    out.write("&lt;");
+                    break;
+                case '>':
+                    out.write("&gt;");
+                    break;
+                case '"':
+                    out.write("&quot;");
+                    break;
+                default:
+                    // control characters are not allowed in XML 1.0
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        out.write(c);
+                    }
+            }
+        }
+    }
+
+    private static void writeCellReference(Writer out, int column, int row) throws IOException {
+        int length = 0;
+        char[] letters = new char[4];
+        for (int c = column + 1; c > 0; c = (c - 1) / 26) {
+            letters[length++] = (char) ('A' + (c - 1) % 26);
+        }
+        while (length > 0) {
+            out.write(letters[--length]);
+        }
+        out.write(Integer.toString(row + 1));
+    }
+
+    private class XlsxSheetWriter implements SheetWriter {
+
+        // the pending row, written out once a later row is started
+        private int row = -1;
+        private String[] cells = new String[16];
+        private int cellCount = 0;
+        private RowMarker marker;
+
+        @Override
+        public void addLabel(int column, int row, String text) throws IOException {
+            moveTo(row);
+
+            if (column >= cells.length) {
+                cells = Arrays.copyOf(cells, Math.max(column + 1, cells.length * 2));
+            }
+            cells[column] = text;
+            cellCount = Math.max(cellCount, column + 1);
+        }
+
+        @Override
+        public void markRow(int row, RowMarker marker) throws IOException {
+            moveTo(row);
+            this.marker = marker;
+        }
+
+        private void moveTo(int row) throws IOException {
+            if (openSheet != this) {
+                throw new IllegalStateException("sheet already finished");
+            }
+            if (row < this.row) {
+                throw new IllegalStateException("row " + row + " already written");
+            }
+            if (row > this.row) {
+                flushRow();
+                this.row = row;
+            }
+        }
+
+        private void flushRow() throws IOException {
+            if (row < 0) {
+                return;
+            }
+
+            out.write("<row r=\"" + (row + 1) + "\">");
+
+            int until = marker == null ? cellCount : Math.max(cellCount, marker.untilColumn);
+            for (int column = 0; column < until; column++) {
+                String text = column < cellCount ? cells[column] : null;
+                boolean marked = marker != null && column >= marker.fromColumn && column < marker.untilColumn;
+                if (text == null && !marked) {
+                    continue;
+                }
+
+                out.write("<c r=\"");
+                writeCellReference(out, column, row);
+                out.write(marked ? "\" s=\"" + (marker.ordinal() + 1) + "\"" : "\"");
+
+                if (text == null) {
+                    out.write("/>");
+                } else {
+                    out.write(" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                    writeEscaped(text);
+                    out.write("</t></is></c>");
+                }
+            }
+
+            out.write("</row>");
+
+            Arrays.fill(cells, 0, cellCount, null);
+            cellCount = 0;
+            marker = null;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (openSheet != this) {
+                return;
+            }
+
+            flushRow();
+            out.write("</sheetData></worksheet>");
+            endEntry();
+
+            openSheet = null;
+        }
+    }
+}
@@ -4,6 +4,9 @@ import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.LocalTime;
+
 /**
  * Created by Sebastian on 12.09.2014.
  */
@@ -11,8 +14,17 @@ public class DB extends SQLiteOpenHelper {
 
     public static final String DATABASE_NAME = "worktime.db";
 
+    /**
+     * 7: dates, times and months stored as text
+     * 8: dates as epoch day, times as minute of day, months as yyyymm integers
+     * 9: covering indexes for the month based lookups
+     * 10: content version per month
+     */
+    private static final int DATABASE_VERSION = 10;
+
     public static final String TABLE_WORK_RECORDS = "work_records";
     public static final String TABLE_LEAVE_RECORDS = "leave_records";
+    public static final String TABLE_MONTH_VERSIONS = "month_versions";
 
     public static final String COL_ID = "id";
     public static final String COL_MONTH = "month";
@@ -27,6 +39,8 @@ public class DB extends SQLiteOpenHelper {
     public static final String COL_REASON = "reason";
     public static final String COL_WORKDAYS = "workdays";
 
+    public static final String COL_VERSION = "version";
+
     public static final String[] WORK_RECORD_COLUMNS =
             new String[]{COL_ID, COL_DATE, COL_START_TIME, COL_END_TIME};
     public static final String[] LEAVE_RECORD_COLUMNS =
@@ -34,34 +48,147 @@ public class DB extends SQLiteOpenHelper {
 
     private static final String CREATE_TABLE_WORK_RECORDS = "create table " + TABLE_WORK_RECORDS +
             " (" + COL_ID + " integer primary key autoincrement, " + // PK
-            COL_MONTH + " text not null, " +        // fast lookup in gui
-            COL_DATE + " text not null, " +
-            COL_START_TIME + " text not null, " +
-            COL_END_TIME + " text not null);";
+            COL_MONTH + " integer not null, " +     // yyyymm, fast lookup in gui
+            COL_DATE + " integer not null, " +      // epoch day
+            COL_START_TIME + " integer not null, " + // minute of day
+            COL_END_TIME + " integer not null);";
 
     private static final String CREATE_TABLE_LEAVE_RECORDS = "create table " + TABLE_LEAVE_RECORDS +
             " (" + COL_ID + " integer primary key autoincrement, " + // PK
             COL_BASE_ID + " integer, " +            // metadata to group multiday entries
-            COL_MONTH + " text not null, " +        // fast lookup in gui
-            COL_DATE + " text not null, " +
+            COL_MONTH + " integer not null, " +     // yyyymm, fast lookup in gui
+            COL_DATE + " integer not null, " +      // epoch day
             COL_REASON + " text not null, " +
             COL_WORKDAYS + " integer not null);";
 
+    private static final String CREATE_TABLE_MONTH_VERSIONS = "create table " + TABLE_MONTH_VERSIONS +
+            " (" + COL_MONTH + " integer primary key, " + // yyyymm
+            COL_VERSION + " integer not null);";          // changes with every mutation of the month
+
+    // month view, ordered by date and time; also serves the month list
+    private static final String CREATE_INDEX_WORK_RECORDS_MONTH = "create index if not exists " +
+            TABLE_WORK_RECORDS + "_month on " + TABLE_WORK_RECORDS +
+            " (" + COL_MONTH + ", " + COL_DATE + ", " + COL_START_TIME + ", " + COL_END_TIME + ");";
+
+    // month view, ordered by date
+    private static final String CREATE_INDEX_LEAVE_RECORDS_MONTH = "create index if not exists " +
+            TABLE_LEAVE_RECORDS + "_month on " + TABLE_LEAVE_RECORDS +
+            " (" + COL_MONTH + ", " + COL_DATE + ", " + COL_BASE_ID + ", " + COL_REASON + ", " + COL_WORKDAYS + ");";
+
+    // multiday groups
+    private static final String CREATE_INDEX_LEAVE_RECORDS_BASE_ID = "create index if not exists " +
+            TABLE_LEAVE_RECORDS + "_base_id on " + TABLE_LEAVE_RECORDS +
+            " (" + COL_BASE_ID + ");";
+
+    // holidays of a month
+    private static final String CREATE_INDEX_LEAVE_RECORDS_REASON = "create index if not exists " +
+            TABLE_LEAVE_RECORDS + "_reason on " + TABLE_LEAVE_RECORDS +
+            " (" + COL_MONTH + ", " + COL_REASON + ", " + COL_DATE + ");";
+
     public DB(Context context) {
-        super(context, DATABASE_NAME, null, 7);
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
     }
 
     @Override
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(CREATE_TABLE_WORK_RECORDS);
         db.execSQL(CREATE_TABLE_LEAVE_RECORDS);
+        db.execSQL(CREATE_TABLE_MONTH_VERSIONS);
+        createIndexes(db);
+    }
+
+    private void createIndexes(SQLiteDatabase db) {
+        db.execSQL(CREATE_INDEX_WORK_RECORDS_MONTH);
+        db.execSQL(CREATE_INDEX_LEAVE_RECORDS_MONTH);
+        db.execSQL(CREATE_INDEX_LEAVE_RECORDS_BASE_ID);
+        db.execSQL(CREATE_INDEX_LEAVE_RECORDS_REASON);
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("drop table if exists worktime_records");
-        db.execSQL("drop table if exists work_records");
-        db.execSQL("drop table if exists leave_records");
-        onCreate(db);
+        if (oldVersion < 7) {
+            // no migration path from the early development schemas
+            db.execSQL("drop table if exists worktime_records");
+            db.execSQL("drop table if exists work_records");
+            db.execSQL("drop table if exists leave_records");
+            onCreate(db);
+            return;
+        }
+
+        if (oldVersion < 8) {
+            upgradeToIntegerColumns(db);
+        }
+
+        if (oldVersion < 9) {
+            createIndexes(db);
+        }
+
+        if (oldVersion < 10) {
+            db.execSQL(CREATE_TABLE_MONTH_VERSIONS);
+        }
+    }
+
+    /**
+     * Version 8: converts the text encoded month, date and time columns in place.
+     * SQLite cannot change column types, so the tables are copied over.
+     */
+    private void upgradeToIntegerColumns(SQLiteDatabase db) {
+        db.execSQL("alter table " + TABLE_WORK_RECORDS + " rename to " + TABLE_WORK_RECORDS + "_v7");
+        db.execSQL(CREATE_TABLE_WORK_RECORDS);
+        db.execSQL("insert into " + TABLE_WORK_RECORDS +
+                " (" + COL_ID + ", " + COL_MONTH + ", " + COL_DATE + ", " + COL_START_TIME + ", " + COL_END_TIME + ")" +
+                " select " + COL_ID + ", " +
+                "cast(" + COL_MONTH + " as integer), " +
+                textToEpochDay(COL_DATE) + ", " +
+                textToMinuteOfDay(COL_START_TIME) + ", " +
+                textToMinuteOfDay(COL_END_TIME) +
+                " from " + TABLE_WORK_RECORDS + "_v7");
+        db.execSQL("drop table " + TABLE_WORK_RECORDS + "_v7");
+
+        db.execSQL("alter table " + TABLE_LEAVE_RECORDS + " rename to " + TABLE_LEAVE_RECORDS + "_v7");
+        db.execSQL(CREATE_TABLE_LEAVE_RECORDS);
+        db.execSQL("insert into " + TABLE_LEAVE_RECORDS +
+                " (" + COL_ID + ", " + COL_BASE_ID + ", " + COL_MONTH + ", " + COL_DATE + ", " + COL_REASON + ", " + COL_WORKDAYS + ")" +
+                " select " + COL_ID + ", " + COL_BASE_ID + ", " +
+                "cast(" + COL_MONTH + " as integer), " +
+                textToEpochDay(COL_DATE) + ", " +
+                COL_REASON + ", " + COL_WORKDAYS +
+                " from " + TABLE_LEAVE_RECORDS + "_v7");
+        db.execSQL("drop table " + TABLE_LEAVE_RECORDS + "_v7");
+    }
+
+    // 'yyyy-MM-dd' -> days since 1970-01-01 (julian day 2440587.5)
+    private static String textToEpochDay(String column) {
+        return "cast(julianday(" + column + ") - 2440587.5 as integer)";
+    }
+
+    // 'HH:mm' -> minutes since midnight
+    private static String textToMinuteOfDay(String column) {
+        return "(cast(substr(" + column + ", 1, 2) as integer) * 60 + cast(substr(" + column + ", 4, 2) as integer))";
+    }
+
+    public static int toDBMonth(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    public static LocalDate fromDBMonth(int month) {
+        return LocalDate.of(month / 100, month % 100, 1);
+    }
+
+    public static long toDBDate(LocalDate date) {
+        return date.toEpochDay();
+    }
+
+    public static LocalDate fromDBDate(long date) {
+        return LocalDate.ofEpochDay(date);
+    }
+
+    public static int toDBTime(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    public static LocalTime fromDBTime(int time) {
+        return LocalTime.of(time / 60, time % 60);
     }
 }
@@ -4,89 +4,205 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
-
-import com.github.skyborla.worktime.FormatUtil;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Handler;
+import android.os.Looper;
 
 import org.threeten.bp.DayOfWeek;
 import org.threeten.bp.LocalDate;
-import org.threeten.bp.LocalTime;
-import org.threeten.bp.temporal.ChronoUnit;
 
-import java.sql.SQLException;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.TreeMap;
 
 /**
  * Created by Sebastian on 12.09.2014.
+ * <p/>
+ * One instance per process, shared through {@link #acquire(Context)} and {@link #release()}.
+ * The connection outlives a short drop to no references, as during a configuration change.
  */
 public class DataSource {
 
+    private static final String INSERT_WORK_RECORD = "insert into " + DB.TABLE_WORK_RECORDS + " (" +
+            DB.COL_MONTH + ", " + DB.COL_DATE + ", " +
+            DB.COL_START_TIME + ", " + DB.COL_END_TIME + ") values (?, ?, ?, ?)";
+
+    private static final String DELETE_WORK_RECORD = "delete from " + DB.TABLE_WORK_RECORDS +
+            " where " + DB.COL_ID + " = ?";
+
+    private static final String INSERT_LEAVE_RECORD = "insert into " + DB.TABLE_LEAVE_RECORDS + " (" +
+            DB.COL_BASE_ID + ", " + DB.COL_MONTH + ", " + DB.COL_DATE + ", " +
+            DB.COL_REASON + ", " + DB.COL_WORKDAYS + ") values (?, ?, ?, ?, ?)";
+
+    // versions are drawn from one counter over all months, so a version is never reused
+    private static final String BUMP_MONTH_VERSION = "insert or replace into " + DB.TABLE_MONTH_VERSIONS + " (" +
+            DB.COL_MONTH + ", " + DB.COL_VERSION + ") values (?, (select ifnull(max(" + DB.COL_VERSION + "), 0) + 1 from " +
+            DB.TABLE_MONTH_VERSIONS + "))";
+
+    // how long the connection stays open without references
+    private static final long CLOSE_DELAY_MILLIS = 10 * 1000;
+
+    private static final Handler handler = new Handler(Looper.getMainLooper());
+
+    private static final Runnable closeIfUnused = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (DataSource.class) {
+                if (references == 0 && opened) {
+                    instance.close();
+                    opened = false;
+                }
+            }
+        }
+    };
+
+    private static DataSource instance;
+    private static int references = 0;
+    private static boolean opened = false;
+
     private SQLiteDatabase database;
     private DB dbHelper;
 
-    public DataSource(Context context) {
+    private SQLiteStatement insertWorkRecord;
+    private SQLiteStatement deleteWorkRecord;
+    private SQLiteStatement insertLeaveRecord;
+    private SQLiteStatement bumpMonthVersion;
+
+    private final MonthIndex monthIndex = new MonthIndex();
+
+    /**
+     * Returns the shared data source, opening the database for the first reference.
+     * Every call has to be paired with a {@link #release()}.
+     */
+    public static synchronized DataSource acquire(Context context) {
+        if (instance == null) {
+            instance = new DataSource(context.getApplicationContext());
+        }
+
+        handler.removeCallbacks(closeIfUnused);
+        if (!opened) {
+            instance.open();
+            opened = true;
+        }
+        references++;
+
+        return instance;
+    }
+
+    /**
+     * Gives up a reference obtained by {@link #acquire(Context)}. The database is closed a while
+     * after the last one is released, unless it is acquired again in between; so a recreated
+     * activity keeps the connection, its compiled statements and the month index.
+     */
+    public void release() {
+        synchronized (DataSource.class) {
+            references--;
+
+            if (references == 0) {
+                handler.postDelayed(closeIfUnused, CLOSE_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private DataSource(Context context) {
         dbHelper = new DB(context);
     }
 
-    public void open() throws SQLException {
+    private synchronized void open() {
         database = dbHelper.getWritableDatabase();
+
+        insertWorkRecord = database.compileStatement(INSERT_WORK_RECORD);
+        deleteWorkRecord = database.compileStatement(DELETE_WORK_RECORD);
+        insertLeaveRecord = database.compileStatement(INSERT_LEAVE_RECORD);
+        bumpMonthVersion = database.compileStatement(BUMP_MONTH_VERSION);
+
+        monthIndex.invalidate();
     }
 
-    public void close() {
+    private synchronized void close() {
+        insertWorkRecord.close();
+        deleteWorkRecord.close();
+        insertLeaveRecord.close();
+        bumpMonthVersion.close();
+
         dbHelper.close();
     }
 
-    public List<LocalDate> getMonths() {
-
-        Set<LocalDate> months = new TreeSet<LocalDate>();
+    /**
+     * Months with at least one record, ascending. Served from memory; the index is loaded
+     * with a single query on first use and maintained by the persist, update and delete
+     * methods afterwards. Synchronized with them, so the index is loaded once and no
+     * mutation can slip in between its query and its load.
+     */
+    public synchronized List<LocalDate> getMonths() {
+        if (!monthIndex.isLoaded()) {
+            loadMonthIndex();
+        }
+        return monthIndex.getMonths();
+    }
 
-        String workTable = DB.TABLE_WORK_RECORDS;
-        String[] columns = new String[]{DB.COL_MONTH};
-        String groupBy = DB.COL_MONTH;
-        String orderBy = DB.COL_MONTH + " ASC";
-        Cursor workCursor = database.query(workTable, columns, null, null, groupBy, null, orderBy);
+    private void loadMonthIndex() {
+        Map<Integer, Integer> counts = new TreeMap<Integer, Integer>();
+        addMonthCounts(counts, Queries.WORK_MONTH_COUNTS);
+        addMonthCounts(counts, Queries.LEAVE_MONTH_COUNTS);
 
-        workCursor.moveToFirst();
-        while (!workCursor.isAfterLast()) {
-            months.add(FormatUtil.parseDBMonthFormat(workCursor.getString(0)));
-            workCursor.moveToNext();
+        Map<LocalDate, Integer> months = new LinkedHashMap<LocalDate, Integer>();
+        for (Map.Entry<Integer, Integer> count : counts.entrySet()) {
+            months.put(DB.fromDBMonth(count.getKey()), count.getValue());
         }
-        workCursor.close();
 
-        String leaveTable = DB.TABLE_LEAVE_RECORDS;
-        Cursor leaveCursor = database.query(leaveTable, columns, null, null, groupBy, null, orderBy);
+        monthIndex.load(months);
+    }
 
-        leaveCursor.moveToFirst();
-        while (!leaveCursor.isAfterLast()) {
-            months.add(FormatUtil.parseDBMonthFormat(leaveCursor.getString(0)));
-            leaveCursor.moveToNext();
-        }
-        leaveCursor.close();
+    private void addMonthCounts(Map<Integer, Integer> counts, String query) {
+        Cursor cursor = database.rawQuery(query, null);
 
-        return new ArrayList<LocalDate>(months);
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            Integer count = counts.get(cursor.getInt(0));
+            counts.put(cursor.getInt(0), (count == null ? 0 : count) + cursor.getInt(1));
+            cursor.moveToNext();
+        }
+        cursor.close();
     }
 
-    public LocalDate persistWorkRecord(WorkRecord workRecord) {
+    public synchronized LocalDate persistWorkRecord(WorkRecord workRecord) {
+        LocalDate month = workRecord.getDate().withDayOfMonth(1);
+
+        insertWorkRecord.bindLong(1, DB.toDBMonth(month));
+        insertWorkRecord.bindLong(2, DB.toDBDate(workRecord.getDate()));
+        insertWorkRecord.bindLong(3, DB.toDBTime(workRecord.getStartTime()));
+        insertWorkRecord.bindLong(4, DB.toDBTime(workRecord.getEndTime()));
 
-        String table = DB.TABLE_WORK_RECORDS;
-        ContentValues values = workRecordToContentValues(workRecord);
-        database.insert(table, null, values);
+        long id;
+        database.beginTransaction();
+        try {
+            id = insertWorkRecord.executeInsert();
+            bumpMonthVersion(month);
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+
+        if (id != -1) {
+            monthIndex.add(month, 1);
+        }
 
-        return workRecord.getDate().withDayOfMonth(1);
+        return month;
     }
 
     public List<WorkRecord> getWorkRecords(String month) {
         List<WorkRecord> workRecords = new ArrayList<WorkRecord>();
 
-        String table = DB.TABLE_WORK_RECORDS;
-        String[] columns = DB.WORK_RECORD_COLUMNS;
-        String where = DB.COL_MONTH + " = " + month;
-        String orderBy = DB.COL_DATE + " ASC, " + DB.COL_START_TIME + " ASC, " + DB.COL_END_TIME + " ASC";
-        Cursor cursor = database.query(table, columns, where, null, null, null, orderBy);
+        Cursor cursor = database.rawQuery(Queries.workRecordsOfMonth(month), null);
 
         cursor.moveToFirst();
         while (!cursor.isAfterLast()) {
@@ -98,44 +214,75 @@ public class DataSource {
         return workRecords;
     }
 
-    public Set<LocalDate> updateWorkRecord(WorkRecord workRecord) {
+    public synchronized Set<LocalDate> updateWorkRecord(WorkRecord workRecord) {
         Set<LocalDate> affectedMonths = new HashSet<LocalDate>();
 
-        // add old month to affected month
-        String table = DB.TABLE_WORK_RECORDS;
-        String[] columns = new String[]{DB.COL_MONTH};
-        String where = DB.COL_ID + " = " + workRecord.getId();
-        Cursor cursor = database.query(table, columns, where, null, null, null, null);
-
-        cursor.moveToFirst();
-        affectedMonths.add(FormatUtil.parseDBMonthFormat(cursor.getString(0)).withDayOfMonth(1));
-        cursor.close();
+        LocalDate oldMonth;
+        LocalDate newMonth;
+        int updated;
+
+        database.beginTransaction();
+        try {
+            // add old month to affected month
+            String table = DB.TABLE_WORK_RECORDS;
+            String[] columns = new String[]{DB.COL_MONTH};
+            String where = DB.COL_ID + " = " + workRecord.getId();
+            Cursor cursor = database.query(table, columns, where, null, null, null, null);
+
+            cursor.moveToFirst();
+            oldMonth = DB.fromDBMonth(cursor.getInt(0));
+            affectedMonths.add(oldMonth);
+            cursor.close();
+
+            // update record
+            ContentValues values = workRecordToContentValues(workRecord);
+            String whereClause = DB.COL_ID + " = " + workRecord.getId();
+            updated = database.update(table, values, whereClause, null);
+
+            // add new month to affected month
+            newMonth = workRecord.getDate().withDayOfMonth(1);
+            affectedMonths.add(newMonth);
+
+            bumpMonthVersions(affectedMonths);
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
 
-        // update record
-        ContentValues values = workRecordToContentValues(workRecord);
-        String whereClause = DB.COL_ID + " = " + workRecord.getId();
-        database.update(table, values, whereClause, null);
+        if (updated > 0) {
+            monthIndex.remove(oldMonth, updated);
+            monthIndex.add(newMonth, updated);
+        }
 
-        // add old month to affected month
-        affectedMonths.add(workRecord.getDate().withDayOfMonth(1));
         return affectedMonths;
     }
 
-    public LocalDate deleteWorkRecord(WorkRecord workRecord) {
-        String table = DB.TABLE_WORK_RECORDS;
-        String whereClause = DB.COL_ID + " = " + workRecord.getId();
-        database.delete(table, whereClause, null);
+    public synchronized LocalDate deleteWorkRecord(WorkRecord workRecord) {
+        LocalDate month = workRecord.getDate().withDayOfMonth(1);
+        int deleted;
+
+        database.beginTransaction();
+        try {
+            deleteWorkRecord.bindLong(1, workRecord.getId());
+            deleted = deleteWorkRecord.executeUpdateDelete();
+            bumpMonthVersion(month);
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+
+        monthIndex.remove(month, deleted);
 
-        return workRecord.getDate().withDayOfMonth(1);
+        return month;
     }
 
 
     private WorkRecord cursorToWorkRecord(Cursor cursor) {
         WorkRecord workRecord = new WorkRecord();
         workRecord.setId(cursor.getLong(0));
-        workRecord.setDate(LocalDate.parse(cursor.getString(1)));
-        workRecord.setStartTime(LocalTime.parse(cursor.getString(2)));
-        workRecord.setEndTime(LocalTime.parse(cursor.getString(3)));
+        workRecord.setDate(DB.fromDBDate(cursor.getLong(1)));
+        workRecord.setStartTime(DB.fromDBTime(cursor.getInt(2)));
+        workRecord.setEndTime(DB.fromDBTime(cursor.getInt(3)));
 
         return workRecord;
     }
@@ -143,51 +290,74 @@ public class DataSource {
     private ContentValues workRecordToContentValues(WorkRecord workRecord) {
         ContentValues values = new ContentValues();
 
-        values.put(DB.COL_DATE, workRecord.getDate().toString());
-        values.put(DB.COL_MONTH, FormatUtil.DATE_FORMAT_DB_MONTH.format(workRecord.getDate()));
-
-        values.put(DB.COL_START_TIME,
-                workRecord.getStartTime().truncatedTo(ChronoUnit.MINUTES).toString());
+        values.put(DB.COL_DATE, DB.toDBDate(workRecord.getDate()));
+        values.put(DB.COL_MONTH, DB.toDBMonth(workRecord.getDate()));
 
-        values.put(DB.COL_END_TIME,
-                workRecord.getEndTime().truncatedTo(ChronoUnit.MINUTES).toString());
+        values.put(DB.COL_START_TIME, DB.toDBTime(workRecord.getStartTime()));
+        values.put(DB.COL_END_TIME, DB.toDBTime(workRecord.getEndTime()));
 
         return values;
     }
 
-    public Set<LocalDate> persistLeaveRecord(MetaLeaveRecord metaLeaveRecord) {
-        String table = DB.TABLE_LEAVE_RECORDS;
-
-        LeaveRecord leaveRecord = new LeaveRecord();
-        leaveRecord.setReason(metaLeaveRecord.getReason());
-        leaveRecord.setWorkdays(metaLeaveRecord.isWorkdays());
-
-        Set<LocalDate> affectedMonths = new LinkedHashSet<LocalDate>();
-
-        LocalDate date = metaLeaveRecord.getStartDate();
-        while (!date.isAfter(metaLeaveRecord.getEndDate())) {
-
-            if (metaLeaveRecord.isWorkdays() &&
-                    (date.getDayOfWeek() == DayOfWeek.SATURDAY ||
-                            date.getDayOfWeek() == DayOfWeek.SUNDAY)) {
-                date = date.plusDays(1);
-                continue;
+    /**
+     * Inserts one row per (work)day of the given range. All rows are written through a single
+     * compiled statement inside one transaction, so long leaves cost one journal sync in total.
+     */
+    public synchronized Set<LocalDate> persistLeaveRecord(MetaLeaveRecord metaLeaveRecord) {
+        Map<LocalDate, Integer> insertedPerMonth = new LinkedHashMap<LocalDate, Integer>();
+
+        String reason = metaLeaveRecord.getReason().toString();
+        boolean workdays = metaLeaveRecord.isWorkdays();
+
+        database.beginTransaction();
+        try {
+            Long baseId = null;
+            LocalDate month = null;
+            int dbMonth = 0;
+
+            LocalDate date = metaLeaveRecord.getStartDate();
+            for (; !date.isAfter(metaLeaveRecord.getEndDate()); date = date.plusDays(1)) {
+
+                if (workdays &&
+                        (date.getDayOfWeek() == DayOfWeek.SATURDAY ||
+                                date.getDayOfWeek() == DayOfWeek.SUNDAY)) {
+                    continue;
+                }
+
+                if (month == null || month.getMonth() != date.getMonth() || month.getYear() != date.getYear()) {
+                    month = date.withDayOfMonth(1);
+                    dbMonth = DB.toDBMonth(month);
+                    insertedPerMonth.put(month, 0);
+                }
+
+                if (baseId == null) {
+                    insertLeaveRecord.bindNull(1);
+                } else {
+                    insertLeaveRecord.bindLong(1, baseId);
+                }
+                insertLeaveRecord.bindLong(2, dbMonth);
+                insertLeaveRecord.bindLong(3, DB.toDBDate(date));
+                insertLeaveRecord.bindString(4, reason);
+                insertLeaveRecord.bindLong(5, workdays ? 1 : 0);
+
+                long id = insertLeaveRecord.executeInsert();
+                if (baseId == null) {
+                    baseId = id;
+                }
+                insertedPerMonth.put(month, insertedPerMonth.get(month) + 1);
             }
 
-            leaveRecord.setDate(date);
-            affectedMonths.add(date.withDayOfMonth(1));
-
-            ContentValues values = leaveRecordToContentValues(leaveRecord);
-
-            long id = database.insert(table, null, values);
-            if (leaveRecord.getBaseId() == null) {
-                leaveRecord.setBaseId(id);
-            }
+            bumpMonthVersions(insertedPerMonth.keySet());
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
 
-            date = date.plusDays(1);
+        for (Map.Entry<LocalDate, Integer> inserted : insertedPerMonth.entrySet()) {
+            monthIndex.add(inserted.getKey(), inserted.getValue());
         }
 
-        return affectedMonths;
+        return new LinkedHashSet<LocalDate>(insertedPerMonth.keySet());
     }
 
     public MetaLeaveRecord getMetaLeaveRecord(LeaveRecord leaveRecord) {
@@ -199,17 +369,13 @@ public class DataSource {
         metaLeaveRecord.setId(id);
 
         // reconstruct date boundaries
-        String table = DB.TABLE_LEAVE_RECORDS;
-        String[] columns = new String[]{DB.COL_DATE};
-        String where = DB.COL_ID + " = " + id + " or " + DB.COL_BASE_ID + " = " + id;
-        String orderBy = DB.COL_DATE + " ASC";
-        Cursor cursor = database.query(table, columns, where, null, null, null, orderBy);
+        Cursor cursor = database.rawQuery(Queries.leaveGroupDates(id), null);
 
         cursor.moveToFirst();
-        metaLeaveRecord.setStartDate(LocalDate.parse(cursor.getString(0)));
+        metaLeaveRecord.setStartDate(DB.fromDBDate(cursor.getLong(0)));
 
         cursor.moveToLast();
-        metaLeaveRecord.setEndDate(LocalDate.parse(cursor.getString(0)));
+        metaLeaveRecord.setEndDate(DB.fromDBDate(cursor.getLong(0)));
 
         cursor.close();
 
@@ -226,51 +392,109 @@ public class DataSource {
         return id;
     }
 
-    public Set<LocalDate> deleteLeaveRecord(LeaveRecord leaveRecord) {
+    public synchronized Set<LocalDate> deleteLeaveRecord(LeaveRecord leaveRecord) {
         long id = getMetaIdOfLeaveRecord(leaveRecord);
         return deleteLeaveRecord(id);
     }
 
     private Set<LocalDate> deleteLeaveRecord(long id) {
-        Set<LocalDate> affectedMonths = new LinkedHashSet<LocalDate>();
+        Map<LocalDate, Integer> deletedPerMonth = new LinkedHashMap<LocalDate, Integer>();
+
+        database.beginTransaction();
+        try {
+            // record affected months
+            String table = DB.TABLE_LEAVE_RECORDS;
+            String[] columns = new String[]{DB.COL_MONTH, "count(*)"};
+            String where = DB.COL_ID + " = " + id + " or " + DB.COL_BASE_ID + " = " + id;
+            String groupBy = DB.COL_MONTH;
+            String orderBy = DB.COL_MONTH + " ASC";
+            Cursor cursor = database.query(table, columns, where, null, groupBy, null, orderBy);
+
+            cursor.moveToFirst();
+            while (!cursor.isAfterLast()) {
+                deletedPerMonth.put(DB.fromDBMonth(cursor.getInt(0)), cursor.getInt(1));
+                cursor.moveToNext();
+            }
+            cursor.close();
+
+            // delete entries
+            database.delete(table, where, null);
+            bumpMonthVersions(deletedPerMonth.keySet());
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+
+        for (Map.Entry<LocalDate, Integer> deleted : deletedPerMonth.entrySet()) {
+            monthIndex.remove(deleted.getKey(), deleted.getValue());
+        }
+
+        return new LinkedHashSet<LocalDate>(deletedPerMonth.keySet());
+    }
+
+    public synchronized Set<LocalDate> updateLeaveRecord(MetaLeaveRecord record) {
+
+        Set<LocalDate> affectedMonths;
+        boolean successful = false;
+
+        database.beginTransaction();
+        try {
+            affectedMonths = deleteLeaveRecord(record.getId());
+            affectedMonths.addAll(persistLeaveRecord(record));
+
+            database.setTransactionSuccessful();
+            successful = true;
+        } finally {
+            database.endTransaction();
+
+            // the month index may already reflect the rolled back delete
+            if (!successful) {
+                monthIndex.invalidate();
+            }
+        }
+
+        return affectedMonths;
+    }
 
-        // record affected months
-        String table = DB.TABLE_LEAVE_RECORDS;
-        String[] columns = new String[]{DB.COL_MONTH};
-        String where = DB.COL_ID + " = " + id + " or " + DB.COL_BASE_ID + " = " + id;
-        String groupBy = DB.COL_MONTH;
-        String orderBy = DB.COL_MONTH + " ASC";
-        Cursor cursor = database.query(table, columns, where, null, groupBy, null, orderBy);
+    /**
+     * Content version per month (yyyymm), changed by every mutation of the month. Months
+     * not changed since the versions were introduced are missing.
+     */
+    public Map<Integer, Long> getMonthVersions() {
+        Map<Integer, Long> versions = new HashMap<Integer, Long>();
+
+        String table = DB.TABLE_MONTH_VERSIONS;
+        String[] columns = new String[]{DB.COL_MONTH, DB.COL_VERSION};
+        Cursor cursor = database.query(table, columns, null, null, null, null, null);
 
         cursor.moveToFirst();
         while (!cursor.isAfterLast()) {
-            affectedMonths.add(FormatUtil.parseDBMonthFormat(cursor.getString(0)));
+            versions.put(cursor.getInt(0), cursor.getLong(1));
             cursor.moveToNext();
         }
-        cursor.close();
 
-        // delete entries
-        database.delete(table, where, null);
-
-        return affectedMonths;
+        cursor.close();
+        return versions;
     }
 
-    public Set<LocalDate> updateLeaveRecord(MetaLeaveRecord record) {
-
-        Set<LocalDate> affectedMonths = deleteLeaveRecord(record.getId());
-        affectedMonths.addAll(persistLeaveRecord(record));
+    /**
+     * Called inside the transaction of the mutation, so a version never changes without its records.
+     */
+    private void bumpMonthVersions(Collection<LocalDate> months) {
+        for (LocalDate month : months) {
+            bumpMonthVersion(month);
+        }
+    }
 
-        return affectedMonths;
+    private void bumpMonthVersion(LocalDate month) {
+        bumpMonthVersion.bindLong(1, DB.toDBMonth(month));
+        bumpMonthVersion.executeInsert();
     }
 
     public List<LeaveRecord> getLeaveRecords(String month) {
         List<LeaveRecord> workRecords = new ArrayList<LeaveRecord>();
 
-        String table = DB.TABLE_LEAVE_RECORDS;
-        String[] columns = DB.LEAVE_RECORD_COLUMNS;
-        String where = DB.COL_MONTH + " = " + month;
-        String orderBy = DB.COL_DATE + " ASC";
-        Cursor cursor = database.query(table, columns, where, null, null, null, orderBy);
+        Cursor cursor = database.rawQuery(Queries.leaveRecordsOfMonth(month), null);
 
         cursor.moveToFirst();
         while (!cursor.isAfterLast()) {
@@ -285,14 +509,11 @@ public class DataSource {
     public List<LocalDate> getHolidays(String month) {
         List<LocalDate> holidays = new ArrayList<LocalDate>();
 
-        String table = DB.TABLE_LEAVE_RECORDS;
-        String[] columns = new String[]{DB.COL_DATE};
-        String where = DB.COL_MONTH + " = " + month + " and " + DB.COL_REASON + " = '" + LeaveReason.HOLIDAY.toString() + "'";
-        Cursor cursor = database.query(table, columns, where, null, null, null, null);
+        Cursor cursor = database.rawQuery(Queries.holidaysOfMonth(month), null);
 
         cursor.moveToFirst();
         while (!cursor.isAfterLast()) {
-            holidays.add(LocalDate.parse(cursor.getString(0)));
+            holidays.add(DB.fromDBDate(cursor.getLong(0)));
             cursor.moveToNext();
         }
 
@@ -301,6 +522,101 @@ public class DataSource {
     }
 
 
+    /**
+     * Streams the records of the months [fromMonth, untilMonth] (yyyyMM) to the listener in
+     * month order. Work and leave records are read in one pass over two ordered cursors,
+     * the holidays are taken from the leave records.
+     */
+    public void scanMonths(String fromMonth, String untilMonth, MonthScanListener listener) throws IOException {
+        Cursor workCursor = database.rawQuery(Queries.workScan(fromMonth, untilMonth), null);
+        Cursor leaveCursor = database.rawQuery(Queries.leaveScan(fromMonth, untilMonth), null);
+
+        try {
+            workCursor.moveToFirst();
+            leaveCursor.moveToFirst();
+
+            while (!workCursor.isAfterLast() || !leaveCursor.isAfterLast()) {
+                int month = Math.min(
+                        workCursor.isAfterLast() ? Integer.MAX_VALUE : workCursor.getInt(Queries.WORK_SCAN_MONTH),
+                        leaveCursor.isAfterLast() ? Integer.MAX_VALUE : leaveCursor.getInt(Queries.LEAVE_SCAN_MONTH));
+
+                List<WorkRecord> workRecords = new ArrayList<WorkRecord>();
+                while (!workCursor.isAfterLast() && workCursor.getInt(Queries.WORK_SCAN_MONTH) == month) {
+                    workRecords.add(cursorToWorkRecord(workCursor));
+                    workCursor.moveToNext();
+                }
+
+                List<LeaveRecord> leaveRecords = new ArrayList<LeaveRecord>();
+                List<LocalDate> holidays = new ArrayList<LocalDate>();
+                while (!leaveCursor.isAfterLast() && leaveCursor.getInt(Queries.LEAVE_SCAN_MONTH) == month) {
+                    LeaveRecord leaveRecord = cursorToLeaveRecord(leaveCursor);
+                    leaveRecords.add(leaveRecord);
+                    if (leaveRecord.getReason() == LeaveReason.HOLIDAY) {
+                        holidays.add(leaveRecord.getDate());
+                    }
+                    leaveCursor.moveToNext();
+                }
+
+                listener.onMonth(DB.fromDBMonth(month), workRecords, leaveRecords, holidays);
+            }
+        } finally {
+            workCursor.close();
+            leaveCursor.close();
+        }
+    }
+
+    /**
+     * Summary of one month computed by the database, without loading the records. As in the
+     * export, leave records on a holiday are not counted.
+     */
+    public Summary getMonthSummary(String month) {
+        Summary summary = loadSummaries(Queries.GROUP_BY_MONTH, Queries.monthIs(month)).get(Integer.parseInt(month));
+        return summary == null ? new Summary() : summary;
+    }
+
+    /**
+     * Summaries of the months [fromMonth, untilMonth] (yyyyMM) per year, keyed by year and
+     * computed by the database.
+     */
+    public Map<Integer, Summary> getYearSummaries(String fromMonth, String untilMonth) {
+        return loadSummaries(Queries.GROUP_BY_YEAR, Queries.monthBetween(fromMonth, untilMonth));
+    }
+
+    private Map<Integer, Summary> loadSummaries(String groupBy, String where) {
+        Map<Integer, Summary> summaries = new TreeMap<Integer, Summary>();
+
+        Cursor workCursor = database.rawQuery(Queries.workSummaries(groupBy, where), null);
+
+        workCursor.moveToFirst();
+        while (!workCursor.isAfterLast()) {
+            summaryOf(summaries, workCursor.getInt(0))
+                    .addWorkAggregate(workCursor.getInt(1) * 60, workCursor.getInt(2), workCursor.getInt(3));
+            workCursor.moveToNext();
+        }
+        workCursor.close();
+
+        Cursor leaveCursor = database.rawQuery(Queries.leaveSummaries(groupBy, where), null);
+
+        leaveCursor.moveToFirst();
+        while (!leaveCursor.isAfterLast()) {
+            summaryOf(summaries, leaveCursor.getInt(0))
+                    .addLeaveAggregate(LeaveReason.valueOf(leaveCursor.getString(1)), leaveCursor.getInt(2));
+            leaveCursor.moveToNext();
+        }
+        leaveCursor.close();
+
+        return summaries;
+    }
+
+    private Summary summaryOf(Map<Integer, Summary> summaries, int key) {
+        Summary summary = summaries.get(key);
+        if (summary == null) {
+            summary = new Summary();
+            summaries.put(key, summary);
+        }
+        return summary;
+    }
+
     private LeaveRecord cursorToLeaveRecord(Cursor cursor) {
         LeaveRecord leaveRecord = new LeaveRecord();
         leaveRecord.setId(cursor.getLong(0));
@@ -309,26 +625,11 @@ public class DataSource {
             leaveRecord.setBaseId(cursor.getLong(1));
         }
 
-        leaveRecord.setDate(LocalDate.parse(cursor.getString(2)));
+        leaveRecord.setDate(DB.fromDBDate(cursor.getLong(2)));
 
         leaveRecord.setReason(LeaveReason.valueOf(cursor.getString(3)));
         leaveRecord.setWorkdays(cursor.getInt(4) != 0); //poor man's boolean
 
         return leaveRecord;
     }
-
-    private ContentValues leaveRecordToContentValues(LeaveRecord leaveRecord) {
-        ContentValues values = new ContentValues();
-
-        if (leaveRecord.getBaseId() != null) {
-            values.put(DB.COL_BASE_ID, leaveRecord.getBaseId());
-        }
-
-        values.put(DB.COL_DATE, leaveRecord.getDate().toString());
-        values.put(DB.COL_MONTH, FormatUtil.DATE_FORMAT_DB_MONTH.format(leaveRecord.getDate()));
-
-        values.put(DB.COL_REASON, leaveRecord.getReason().toString());
-        values.put(DB.COL_WORKDAYS, leaveRecord.getWorkdays() ? 1 : 0);
-        return values;
-    }
 }
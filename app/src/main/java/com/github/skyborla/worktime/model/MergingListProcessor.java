@@ -1,54 +1,77 @@
 package com.github.skyborla.worktime.model;
 
 import org.threeten.bp.LocalDate;
-import org.threeten.bp.temporal.WeekFields;
 
-import java.util.LinkedList;
+import java.util.BitSet;
 import java.util.List;
 
 /**
  * Created by Sebastian on 22.09.2014.
+ * <p/>
+ * Merges date ordered work and leave records into one sequence, reporting each week change
+ * (ISO week of year) before the first record of that week. Leave records on holidays are
+ * skipped, the holiday itself is kept.
+ * <p/>
+ * The input lists are walked by index and should therefore be random access lists.
  */
 public abstract class MergingListProcessor {
 
-    private final LinkedList<WorkRecord> workRecords = new LinkedList<WorkRecord>();
-    private final LinkedList<LeaveRecord> leaveRecords = new LinkedList<LeaveRecord>();
-    private final List<LocalDate> holidays;
+    private final List<WorkRecord> workRecords;
+    private final List<LeaveRecord> leaveRecords;
 
-    int lastWeek = -1;
+    // holidays as bits over epoch days, offset by the first holiday
+    private final BitSet holidays = new BitSet();
+    private long firstHoliday;
+
+    private int lastWeek = -1;
+    private int lastWeekYear;
+
+    // epoch days [weekFrom, weekUntil) share the week of year of lastWeek
+    private long weekFrom = Long.MAX_VALUE;
+    private long weekUntil = Long.MIN_VALUE;
 
     public MergingListProcessor(List<WorkRecord> workRecords, List<LeaveRecord> leaveRecords, List<LocalDate> holidays) {
-        this.workRecords.addAll(workRecords);
-        this.leaveRecords.addAll(leaveRecords);
-        this.holidays = holidays;
+        this.workRecords = workRecords;
+        this.leaveRecords = leaveRecords;
+
+        if (!holidays.isEmpty()) {
+            firstHoliday = Long.MAX_VALUE;
+            for (int i = 0; i < holidays.size(); i++) {
+                firstHoliday = Math.min(firstHoliday, holidays.get(i).toEpochDay());
+            }
+            for (int i = 0; i < holidays.size(); i++) {
+                this.holidays.set((int) (holidays.get(i).toEpochDay() - firstHoliday));
+            }
+        }
     }
 
     public void process() {
-        while (workRecords.size() > 0 || leaveRecords.size() > 0) {
-
-            if (workRecords.size() > 0 && leaveRecords.size() > 0) {
-                WorkRecord workRecord = workRecords.peekFirst();
-                LeaveRecord leaveRecord = leaveRecords.peekFirst();
-
-                if (!workRecord.getDate().isAfter(leaveRecord.getDate())) {
-                    checkProcess(workRecord);
-                    workRecords.removeFirst();
-                } else {
-                    checkProcess(leaveRecord);
-                    leaveRecords.removeFirst();
-                }
-            } else if (workRecords.size() > 0) {
-                for (WorkRecord workRecord : workRecords) {
-                    checkProcess(workRecord);
-                }
-                workRecords.clear();
-            } else if (leaveRecords.size() > 0) {
-                for (LeaveRecord leaveRecord : leaveRecords) {
-                    checkProcess(leaveRecord);
-                }
-                leaveRecords.clear();
+        int workCount = workRecords.size();
+        int leaveCount = leaveRecords.size();
+
+        int w = 0;
+        int l = 0;
+
+        while (w < workCount && l < leaveCount) {
+            WorkRecord workRecord = workRecords.get(w);
+            LeaveRecord leaveRecord = leaveRecords.get(l);
+
+            if (!workRecord.getDate().isAfter(leaveRecord.getDate())) {
+                checkProcess(workRecord);
+                w++;
+            } else {
+                checkProcess(leaveRecord);
+                l++;
             }
         }
+
+        for (; w < workCount; w++) {
+            checkProcess(workRecords.get(w));
+        }
+
+        for (; l < leaveCount; l++) {
+            checkProcess(leaveRecords.get(l));
+        }
     }
 
     private void checkProcess(WorkRecord workRecord) {
@@ -61,7 +84,7 @@ public abstract class MergingListProcessor {
 
     private void checkProcess(LeaveRecord leaveRecord) {
         //  holidays override other leave records
-        if (leaveRecord.getReason() != LeaveReason.HOLIDAY && holidays.contains(leaveRecord.getDate())) {
+        if (leaveRecord.getReason() != LeaveReason.HOLIDAY && isHoliday(leaveRecord.getDate())) {
             return;
         }
 
@@ -71,15 +94,53 @@ public abstract class MergingListProcessor {
 
     protected abstract void process(LeaveRecord leaveRecord);
 
+    private boolean isHoliday(LocalDate date) {
+        long offset = date.toEpochDay() - firstHoliday;
+        return offset >= 0 && offset < holidays.length() && holidays.get((int) offset);
+    }
+
     private void checkNewWeek(LocalDate date) {
-        int thisWeek = date.get(WeekFields.ISO.weekOfYear());
+        long epochDay = date.toEpochDay();
+
+        // still in the same week
+        if (epochDay >= weekFrom && epochDay < weekUntil) {
+            return;
+        }
+
+        int dayOfYear = date.getDayOfYear();
+        int dayOfWeek = date.getDayOfWeek().getValue();
+        int thisWeek = weekOfYear(dayOfYear, dayOfWeek);
+
+        // the week of year changes on mondays and on the first of january
+        long yearStart = epochDay - dayOfYear + 1;
+        long weekStart = epochDay - dayOfWeek + 1;
+        weekFrom = Math.max(weekStart, yearStart);
+        weekUntil = Math.min(weekStart + 7, yearStart + date.lengthOfYear());
 
         if (thisWeek != lastWeek) {
+            lastWeekYear = date.getYear();
             newWeek(thisWeek);
             lastWeek = thisWeek;
         }
     }
 
+    /**
+     * Same as {@code date.get(WeekFields.ISO.weekOfYear())}: weeks start on monday, the first
+     * week of the year has at least four days, days before it are in week 0.
+     */
+    private static int weekOfYear(int dayOfYear, int dayOfWeek) {
+        int weekStart = ((dayOfYear - dayOfWeek) % 7 + 7) % 7;
+        int offset = (weekStart + 1 > 4) ? 7 - weekStart : -weekStart;
+        return (7 + offset + (dayOfYear - 1)) / 7;
+    }
+
     protected abstract void newWeek(int week);
 
+    /**
+     * The year of the week last reported to {@link #newWeek(int)}.
+     */
+    protected int getWeekYear() {
+        return lastWeekYear;
+    }
+
 }
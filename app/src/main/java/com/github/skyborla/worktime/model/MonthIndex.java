@@ -0,0 +1,78 @@
+package com.github.skyborla.worktime.model;
+
+import org.threeten.bp.LocalDate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Number of records (work and leave) per month. Kept up to date by the mutating methods
+ * of {@link DataSource}, so the month list can be served without querying the database.
+ */
+class MonthIndex {
+
+    private final TreeMap<LocalDate, Integer> counts = new TreeMap<LocalDate, Integer>();
+
+    private boolean loaded = false;
+    private List<LocalDate> months;
+
+    synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    synchronized void load(Map<LocalDate, Integer> counts) {
+        this.counts.clear();
+        this.counts.putAll(counts);
+
+        loaded = true;
+        months = null;
+    }
+
+    synchronized void invalidate() {
+        counts.clear();
+
+        loaded = false;
+        months = null;
+    }
+
+    synchronized void add(LocalDate month, int count) {
+        if (!loaded || count <= 0) {
+            return;
+        }
+
+        Integer current = counts.get(month);
+        counts.put(month, current == null ? count : current + count);
+
+        if (current == null) {
+            months = null;
+        }
+    }
+
+    synchronized void remove(LocalDate month, int count) {
+        if (!loaded || count <= 0) {
+            return;
+        }
+
+        Integer current = counts.get(month);
+        if (current == null) {
+            return;
+        }
+
+        if (current > count) {
+            counts.put(month, current - count);
+        } else {
+            counts.remove(month);
+            months = null;
+        }
+    }
+
+    synchronized List<LocalDate> getMonths() {
+        if (months == null) {
+            months = Collections.unmodifiableList(new ArrayList<LocalDate>(counts.keySet()));
+        }
+        return months;
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.skyborla.worktime.model;
+
+import org.threeten.bp.LocalDate;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Receives the records of {@link DataSource#scanMonths}, one month at a time.
+ */
+public interface MonthScanListener {
+
+    void onMonth(LocalDate month, List<WorkRecord> workRecords, List<LeaveRecord> leaveRecords,
+                 List<LocalDate> holidays) throws IOException;
+}
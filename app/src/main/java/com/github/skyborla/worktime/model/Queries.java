@@ -0,0 +1,126 @@
+package com.github.skyborla.worktime.model;
+
+/**
+ * The read queries of {@link DataSource} that rely on the indexes of {@link DB}. Kept apart
+ * from DataSource, so their query plans can be checked without Android.
+ */
+final class Queries {
+
+    // records per month; one query per table, so each is grouped along its month index
+    static final String WORK_MONTH_COUNTS = "select " + DB.COL_MONTH + ", count(*) from " + DB.TABLE_WORK_RECORDS +
+            " group by " + DB.COL_MONTH + " order by " + DB.COL_MONTH + " asc";
+    static final String LEAVE_MONTH_COUNTS = "select " + DB.COL_MONTH + ", count(*) from " + DB.TABLE_LEAVE_RECORDS +
+            " group by " + DB.COL_MONTH + " order by " + DB.COL_MONTH + " asc";
+
+    // summary keys of loadSummaries
+    static final String GROUP_BY_MONTH = DB.COL_MONTH;
+    static final String GROUP_BY_YEAR = DB.COL_MONTH + " / 100";
+
+    // record columns followed by the month
+    static final int WORK_SCAN_MONTH = 4;
+    static final int LEAVE_SCAN_MONTH = 5;
+
+    private static final String HOLIDAY = "'" + LeaveReason.HOLIDAY.toString() + "'";
+
+    private static final String WORK_COLUMNS = columns(DB.WORK_RECORD_COLUMNS);
+    private static final String LEAVE_COLUMNS = columns(DB.LEAVE_RECORD_COLUMNS);
+
+    private Queries() {
+    }
+
+    private static String columns(String[] columns) {
+        StringBuilder list = new StringBuilder();
+        for (String column : columns) {
+            if (list.length() > 0) {
+                list.append(", ");
+            }
+            list.append(column);
+        }
+        return list.toString();
+    }
+
+    static String monthIs(String month) {
+        return DB.COL_MONTH + " = " + month;
+    }
+
+    static String monthBetween(String fromMonth, String untilMonth) {
+        return DB.COL_MONTH + " between " + fromMonth + " and " + untilMonth;
+    }
+
+    /**
+     * {@link DB#WORK_RECORD_COLUMNS} of a month, by date and time.
+     */
+    static String workRecordsOfMonth(String month) {
+        return "select " + WORK_COLUMNS + " from " + DB.TABLE_WORK_RECORDS + " where " + monthIs(month) +
+                " order by " + DB.COL_DATE + " asc, " + DB.COL_START_TIME + " asc, " + DB.COL_END_TIME + " asc";
+    }
+
+    /**
+     * {@link DB#LEAVE_RECORD_COLUMNS} of a month, by date.
+     */
+    static String leaveRecordsOfMonth(String month) {
+        return "select " + LEAVE_COLUMNS + " from " + DB.TABLE_LEAVE_RECORDS + " where " + monthIs(month) +
+                " order by " + DB.COL_DATE + " asc";
+    }
+
+    static String holidaysOfMonth(String month) {
+        return "select " + DB.COL_DATE + " from " + DB.TABLE_LEAVE_RECORDS +
+                " where " + monthIs(month) + " and " + DB.COL_REASON + " = " + HOLIDAY;
+    }
+
+    /**
+     * Dates of the leave group with the given base id, ascending.
+     */
+    static String leaveGroupDates(long id) {
+        return "select " + DB.COL_DATE + " from " + DB.TABLE_LEAVE_RECORDS +
+                " where " + DB.COL_ID + " = " + id + " or " + DB.COL_BASE_ID + " = " + id +
+                " order by " + DB.COL_DATE + " asc";
+    }
+
+    /**
+     * Work record columns and the month, over a month range, by month, date and time.
+     */
+    static String workScan(String fromMonth, String untilMonth) {
+        return "select " + WORK_COLUMNS + ", " + DB.COL_MONTH + " from " + DB.TABLE_WORK_RECORDS +
+                " where " + monthBetween(fromMonth, untilMonth) +
+                " order by " + DB.COL_MONTH + " asc, " + DB.COL_DATE + " asc, " +
+                DB.COL_START_TIME + " asc, " + DB.COL_END_TIME + " asc";
+    }
+
+    /**
+     * Leave record columns and the month, over a month range, by month and date.
+     */
+    static String leaveScan(String fromMonth, String untilMonth) {
+        return "select " + LEAVE_COLUMNS + ", " + DB.COL_MONTH + " from " + DB.TABLE_LEAVE_RECORDS +
+                " where " + monthBetween(fromMonth, untilMonth) +
+                " order by " + DB.COL_MONTH + " asc, " + DB.COL_DATE + " asc";
+    }
+
+    /**
+     * Key, worked minutes, worked days and record count of the work records per key.
+     */
+    static String workSummaries(String groupBy, String where) {
+        return "select " + groupBy + ", " +
+                "sum(" + DB.COL_END_TIME + " - " + DB.COL_START_TIME + "), " +
+                "count(distinct " + DB.COL_DATE + "), count(*) " +
+                "from " + DB.TABLE_WORK_RECORDS +
+                (where == null ? "" : " where " + where) +
+                " group by " + groupBy;
+    }
+
+    /**
+     * Key, reason and count of the leave records per key and reason; holidays override other
+     * leave records of the same day.
+     */
+    static String leaveSummaries(String groupBy, String where) {
+        return "select " + groupBy + ", " + DB.COL_REASON + ", count(*) " +
+                "from " + DB.TABLE_LEAVE_RECORDS + " l where " +
+                (where == null ? "" : where + " and ") +
+                "(" + DB.COL_REASON + " = " + HOLIDAY + " or not exists (" +
+                "select 1 from " + DB.TABLE_LEAVE_RECORDS + " h where " +
+                "h." + DB.COL_MONTH + " = l." + DB.COL_MONTH + " and " +
+                "h." + DB.COL_REASON + " = " + HOLIDAY + " and " +
+                "h." + DB.COL_DATE + " = l." + DB.COL_DATE + "))" +
+                " group by " + groupBy + ", " + DB.COL_REASON;
+    }
+}
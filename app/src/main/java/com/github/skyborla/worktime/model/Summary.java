@@ -1,53 +1,125 @@
 package com.github.skyborla.worktime.model;
 
-import org.threeten.bp.Duration;
 import org.threeten.bp.LocalDate;
 
-import java.util.EnumMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
  * Created by Sebastian on 22.09.2014.
+ * <p/>
+ * Counts on primitives only, so adding records does not allocate. Summaries can be merged,
+ * e.g. the month summaries of a year into the year summary.
  */
 public class Summary {
 
+    private static final LeaveReason[] REASONS = LeaveReason.values();
+
     private int totalWorkedSeconds = 0;
-    private Set<LocalDate> workedDays = new HashSet<LocalDate>();
+    private int workedDays = 0;
+
+    // worked days, one bit per day of month; slot i holds the month firstMonth + i
+    private int[] workedDayMasks = new int[0];
+    private int firstMonth;
 
-    private Map<LeaveReason, Integer> leaveCounter = new EnumMap<LeaveReason, Integer>(LeaveReason.class);
+    // worked days only known as a count, see addWorkAggregate
+    private int aggregatedWorkedDays = 0;
+
+    private final int[] leaveCounter = new int[REASONS.length];
 
     private int added = 0;
 
     public void add(WorkRecord workRecord) {
-        workedDays.add(workRecord.getDate());
-        Duration worktime = Duration.between(workRecord.getStartTime(), workRecord.getEndTime());
-        totalWorkedSeconds += worktime.getSeconds();
+        LocalDate date = workRecord.getDate();
+        markWorked(date.getYear() * 12 + date.getMonthValue() - 1, 1 << (date.getDayOfMonth() - 1));
+
+        totalWorkedSeconds += workRecord.getEndTime().toSecondOfDay() - workRecord.getStartTime().toSecondOfDay();
 
         added++;
     }
 
     public void add(LeaveRecord leaveRecord) {
-        Integer count = leaveCounter.get(leaveRecord.getReason());
-        if (count == null) {
-            count = 0;
-        }
-        leaveCounter.put(leaveRecord.getReason(), count + 1);
+        leaveCounter[leaveRecord.getReason().ordinal()]++;
 
         added++;
     }
 
+    /**
+     * Adds totals computed elsewhere, e.g. by an aggregate query. Days added this way
+     * cannot be checked for overlap and are assumed to differ from all other worked days.
+     */
+    void addWorkAggregate(int workedSeconds, int workedDays, int records) {
+        totalWorkedSeconds += workedSeconds;
+        aggregatedWorkedDays += workedDays;
+
+        added += records;
+    }
+
+    void addLeaveAggregate(LeaveReason reason, int records) {
+        leaveCounter[reason.ordinal()] += records;
+
+        added += records;
+    }
+
+    /**
+     * Adds everything counted by the other summary to this one. Days worked in both
+     * are counted once.
+     */
+    public void merge(Summary other) {
+        totalWorkedSeconds += other.totalWorkedSeconds;
+        aggregatedWorkedDays += other.aggregatedWorkedDays;
+
+        for (int i = 0; i < other.workedDayMasks.length; i++) {
+            if (other.workedDayMasks[i] != 0) {
+                markWorked(other.firstMonth + i, other.workedDayMasks[i]);
+            }
+        }
+
+        for (int i = 0; i < leaveCounter.length; i++) {
+            leaveCounter[i] += other.leaveCounter[i];
+        }
+
+        added += other.added;
+    }
+
+    private void markWorked(int month, int days) {
+        int slot = slotOf(month);
+
+        int newDays = days & ~workedDayMasks[slot];
+        if (newDays != 0) {
+            workedDayMasks[slot] |= newDays;
+            workedDays += Integer.bitCount(newDays);
+        }
+    }
+
+    private int slotOf(int month) {
+        if (workedDayMasks.length == 0) {
+            workedDayMasks = new int[1];
+            firstMonth = month;
+
+        } else if (month < firstMonth) {
+            int[] grown = new int[workedDayMasks.length + firstMonth - month];
+            System.arraycopy(workedDayMasks, 0, grown, firstMonth - month, workedDayMasks.length);
+            workedDayMasks = grown;
+            firstMonth = month;
+
+        } else if (month - firstMonth >= workedDayMasks.length) {
+            int length = Math.max(month - firstMonth + 1, workedDayMasks.length * 2);
+            workedDayMasks = Arrays.copyOf(workedDayMasks, length);
+        }
+
+        return month - firstMonth;
+    }
+
     public int getTotalWorkedSeconds() {
         return totalWorkedSeconds;
     }
 
     public int getWorkedDays() {
-        return workedDays.size();
+        return workedDays + aggregatedWorkedDays;
     }
 
     public int getLeaveCounter(LeaveReason reason) {
-        return leaveCounter.get(reason) == null ? 0 : leaveCounter.get(reason);
+        return leaveCounter[reason.ordinal()];
     }
 
     public int getAddedCount() {
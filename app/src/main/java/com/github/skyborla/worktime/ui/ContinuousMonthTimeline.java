@@ -0,0 +1,98 @@
+package com.github.skyborla.worktime.ui;
+
+import com.github.skyborla.worktime.model.DB;
+import com.github.skyborla.worktime.model.DataSource;
+
+import org.threeten.bp.LocalDate;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One page per month from the first recorded month until some months after today, empty
+ * months included. Positions are computed from the month, the records are not needed.
+ */
+public class ContinuousMonthTimeline implements MonthTimeline {
+
+    // months counted from year 0
+    private final int first;
+    private final int last;
+
+    public ContinuousMonthTimeline(LocalDate first, LocalDate last) {
+        this(index(first), index(last));
+    }
+
+    private ContinuousMonthTimeline(int first, int last) {
+        this.first = first;
+        this.last = Math.max(first, last);
+    }
+
+    /**
+     * From the first recorded month, or this month without records, until {@code futureMonths}
+     * after this month or the last recorded month, whichever is later.
+     */
+    public static ContinuousMonthTimeline of(DataSource dataSource, int futureMonths) {
+        LocalDate first = LocalDate.now().withDayOfMonth(1);
+        LocalDate last = first.plusMonths(futureMonths);
+
+        List<LocalDate> months = dataSource.getMonths();
+        if (!months.isEmpty()) {
+            first = min(first, months.get(0));
+            last = max(last, months.get(months.size() - 1));
+        }
+
+        return new ContinuousMonthTimeline(first, last);
+    }
+
+    @Override
+    public int size() {
+        return last - first + 1;
+    }
+
+    @Override
+    public LocalDate getMonth(int position) {
+        int month = first + position;
+        return LocalDate.of(month / 12, month % 12 + 1, 1);
+    }
+
+    @Override
+    public int getPosition(int month) {
+        int index = index(month);
+        if (index < first || index > last) {
+            return -1;
+        }
+        return index - first;
+    }
+
+    @Override
+    public MonthTimeline update(DataSource dataSource, Set<LocalDate> changed) {
+        int newFirst = first;
+        int newLast = last;
+        for (LocalDate date : changed) {
+            int index = index(date);
+            newFirst = Math.min(newFirst, index);
+            newLast = Math.max(newLast, index);
+        }
+
+        if (newFirst == first && newLast == last) {
+            return this;
+        }
+        return new ContinuousMonthTimeline(newFirst, newLast);
+    }
+
+    private static int index(LocalDate date) {
+        return index(DB.toDBMonth(date));
+    }
+
+    private static int index(int month) {
+        return (month / 100) * 12 + month % 100 - 1;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
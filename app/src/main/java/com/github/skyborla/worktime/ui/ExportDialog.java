@@ -0,0 +1,128 @@
+package com.github.skyborla.worktime.ui;
+
+import android.app.AlertDialog;
+import android.app.Dialog;
+import android.content.DialogInterface;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.v4.app.DialogFragment;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.RadioGroup;
+
+import com.github.skyborla.worktime.R;
+import com.github.skyborla.worktime.export.ExportFormat;
+
+import org.threeten.bp.LocalDate;
+
+/**
+ * Lets the user choose the file format and the months of an export.
+ */
+public class ExportDialog extends DialogFragment {
+
+    private static final String ARG_SHOWN_MONTH = "SHOWN_MONTH";
+
+    private ExportDialogListener mListener;
+
+    private RadioGroup formatGroup;
+    private RadioGroup rangeGroup;
+
+    /**
+     * @param shownMonth the month currently shown, offered as year and month range; null offers
+     *                   only the export of all months
+     */
+    public static ExportDialog newInstance(LocalDate shownMonth) {
+        ExportDialog dialog = new ExportDialog();
+
+        Bundle args = new Bundle();
+        if (shownMonth != null) {
+            args.putString(ARG_SHOWN_MONTH, shownMonth.toString());
+        }
+        dialog.setArguments(args);
+
+        return dialog;
+    }
+
+    @NonNull
+    @Override
+    public Dialog onCreateDialog(Bundle savedInstanceState) {
+        mListener = (ExportDialogListener) getActivity();
+
+        AlertDialog.Builder b = new AlertDialog.Builder(getActivity());
+
+        LayoutInflater inflater = getActivity().getLayoutInflater();
+        View v = inflater.inflate(R.layout.fragment_export, null);
+
+        formatGroup = (RadioGroup) v.findViewById(R.id.export_format);
+        rangeGroup = (RadioGroup) v.findViewById(R.id.export_range);
+
+        if (getShownMonth() == null) {
+            v.findViewById(R.id.export_range_year).setEnabled(false);
+            v.findViewById(R.id.export_range_month).setEnabled(false);
+        }
+
+        b.setView(v);
+        b.setPositiveButton(R.string.dialog_export_submit, new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                submit();
+            }
+        });
+        b.setNegativeButton(R.string.dialog_generic_abort, null);
+
+        return b.create();
+    }
+
+    private void submit() {
+        ExportFormat format;
+        switch (formatGroup.getCheckedRadioButtonId()) {
+            case R.id.export_format_xls:
+                format = ExportFormat.XLS;
+                break;
+            case R.id.export_format_xlsx:
+                format = ExportFormat.XLSX;
+                break;
+            case R.id.export_format_csv:
+                format = ExportFormat.CSV;
+                break;
+            case R.id.export_format_json_lines:
+                format = ExportFormat.JSON_LINES;
+                break;
+            default:
+                format = ExportFormat.DEFAULT;
+                break;
+        }
+
+        LocalDate shownMonth = getShownMonth();
+        LocalDate fromDate = null;
+        LocalDate untilDate = null;
+
+        if (shownMonth != null) {
+            switch (rangeGroup.getCheckedRadioButtonId()) {
+                case R.id.export_range_year:
+                    fromDate = shownMonth.withDayOfYear(1);
+                    untilDate = fromDate.plusYears(1).minusDays(1);
+                    break;
+                case R.id.export_range_month:
+                    fromDate = shownMonth;
+                    untilDate = shownMonth;
+                    break;
+            }
+        }
+
+        mListener.startExport(format, fromDate, untilDate);
+    }
+
+    private LocalDate getShownMonth() {
+        String shownMonth = getArguments().getString(ARG_SHOWN_MONTH);
+        return shownMonth == null ? null : LocalDate.parse(shownMonth);
+    }
+
+    public interface ExportDialogListener {
+
+        /**
+         * Exports the months between both dates (inclusive), null leaves the range open at that end.
+         */
+        void startExport(ExportFormat format, LocalDate fromDate, LocalDate untilDate);
+    }
+}
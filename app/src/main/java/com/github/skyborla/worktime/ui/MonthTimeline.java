@@ -0,0 +1,28 @@
+package com.github.skyborla.worktime.ui;
+
+import com.github.skyborla.worktime.model.DataSource;
+
+import org.threeten.bp.LocalDate;
+
+import java.util.Set;
+
+/**
+ * The months shown as pages, in order. Months are looked up as yyyymm.
+ */
+public interface MonthTimeline {
+
+    int size();
+
+    LocalDate getMonth(int position);
+
+    /**
+     * The page of the month, -1 if the month has no page.
+     */
+    int getPosition(int month);
+
+    /**
+     * The timeline after records of the changed months were modified, this instance if
+     * the pages stay the same.
+     */
+    MonthTimeline update(DataSource dataSource, Set<LocalDate> changed);
+}
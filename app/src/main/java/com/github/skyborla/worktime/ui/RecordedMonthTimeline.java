@@ -0,0 +1,57 @@
+package com.github.skyborla.worktime.ui;
+
+import com.github.skyborla.worktime.model.DB;
+import com.github.skyborla.worktime.model.DataSource;
+
+import org.threeten.bp.LocalDate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One page per month that has records.
+ */
+public class RecordedMonthTimeline implements MonthTimeline {
+
+    private final List<LocalDate> months;
+
+    // page position per month (yyyymm)
+    private final Map<Integer, Integer> positions;
+
+    public RecordedMonthTimeline(List<LocalDate> months) {
+        this.months = months;
+
+        positions = new HashMap<Integer, Integer>(months.size() * 2);
+        for (int i = 0; i < months.size(); i++) {
+            positions.put(DB.toDBMonth(months.get(i)), i);
+        }
+    }
+
+    @Override
+    public int size() {
+        return months.size();
+    }
+
+    @Override
+    public LocalDate getMonth(int position) {
+        return months.get(position);
+    }
+
+    @Override
+    public int getPosition(int month) {
+        Integer position = positions.get(month);
+        return position == null ? -1 : position;
+    }
+
+    @Override
+    public MonthTimeline update(DataSource dataSource, Set<LocalDate> changed) {
+        // pages only move when months were added or removed
+        List<LocalDate> newMonths = dataSource.getMonths();
+        if (newMonths == months || newMonths.equals(months)) {
+            return this;
+        }
+        return new RecordedMonthTimeline(newMonths);
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.skyborla.worktime.ui.list;
+
+/**
+ * Stable 64 bit ids of the list items: the view type in the top byte and a key that is
+ * unique within the type below it, so record ids of different tables cannot collide.
+ */
+final class ItemIds {
+
+    private static final int TYPE_SHIFT = 56;
+    private static final long KEY_MASK = (1L << TYPE_SHIFT) - 1;
+
+    private ItemIds() {
+    }
+
+    static long of(int viewType, long key) {
+        return ((long) viewType << TYPE_SHIFT) | (key & KEY_MASK);
+    }
+}
@@ -1,6 +1,8 @@
 package com.github.skyborla.worktime.ui.list;
 
 import android.app.Activity;
+import android.content.Context;
+import android.support.v4.content.ContextCompat;
 import android.view.ContextMenu;
 import android.view.LayoutInflater;
 import android.view.MenuItem;
@@ -16,59 +18,78 @@ import com.github.skyborla.worktime.model.LeaveRecord;
 
 /**
  * Created by Sebastian on 20.09.2014.
+ * The display strings and the reason color are resolved once when the item is created.
  */
 public class LeaveRecordItem implements ListViewItem {
 
+    public static final int VIEW_TYPE = 2;
+
     public static class LeaveRecordHolder {
         public TextView dayText;
         public TextView dateText;
         public TextView reasonText;
     }
 
-    private LeaveRecord leaveRecord;
+    private final LeaveRecord leaveRecord;
+
+    private final String day;
+    private final String date;
+    private final String reason;
+    private final int reasonColor;
 
-    public LeaveRecordItem(LeaveRecord leaveRecord) {
+    public LeaveRecordItem(Context context, LeaveRecord leaveRecord) {
         this.leaveRecord = leaveRecord;
+
+        day = FormatUtil.formatWeekday(leaveRecord.getDate());
+        date = FormatUtil.formatShortDate(leaveRecord.getDate());
+        reason = context.getString(leaveRecord.getReason().stringResource);
+
+        if (leaveRecord.getReason() == LeaveReason.HOLIDAY) {
+            reasonColor = ContextCompat.getColor(context, android.R.color.holo_purple);
+        } else {
+            reasonColor = ContextCompat.getColor(context, android.R.color.holo_green_dark);
+        }
     }
 
     @Override
     public int getItemViewType() {
-        return 2;
+        return VIEW_TYPE;
     }
 
-    @Override
-    public View getView(Activity activity, View row, ViewGroup parent) {
+    public static View createView(LayoutInflater inflater, ViewGroup parent) {
+        View row = inflater.inflate(R.layout.record_list_leave_item, parent, false);
 
-        LeaveRecordHolder holder;
-        if (row == null) {
-            LayoutInflater inflater = activity.getLayoutInflater();
-            row = inflater.inflate(R.layout.record_list_leave_item, parent, false);
+        LeaveRecordHolder holder = new LeaveRecordHolder();
+        holder.dayText = (TextView) row.findViewById(R.id.record_list_day);
+        holder.dateText = (TextView) row.findViewById(R.id.record_list_date);
+        holder.reasonText = (TextView) row.findViewById(R.id.record_list_reason);
 
-            holder = new LeaveRecordHolder();
-            holder.dayText = (TextView) row.findViewById(R.id.record_list_day);
-            holder.dateText = (TextView) row.findViewById(R.id.record_list_date);
-            holder.reasonText = (TextView) row.findViewById(R.id.record_list_reason);
+        holder.dayText.setWidth(Worktime.DATE_COLUMN_WIDTH);
 
-            holder.dayText.setWidth(Worktime.DATE_COLUMN_WIDTH);
+        row.setTag(holder);
+        return row;
+    }
 
-            row.setTag(holder);
-        } else {
-            holder = (LeaveRecordHolder) row.getTag();
-        }
+    @Override
+    public void bindView(View row) {
+        LeaveRecordHolder holder = (LeaveRecordHolder) row.getTag();
 
-        holder.dayText.setText(FormatUtil.DATE_FORMAT_DAY.format(leaveRecord.getDate()));
-        holder.dateText.setText(FormatUtil.DATE_FORMAT_SHORT.format(leaveRecord.getDate()));
-        holder.reasonText.setText(leaveRecord.getReason().stringResource);
+        holder.dayText.setText(day);
+        holder.dateText.setText(date);
+        holder.reasonText.setText(reason);
+        holder.reasonText.setTextColor(reasonColor);
+    }
 
-        int color;
-        if (leaveRecord.getReason() == LeaveReason.HOLIDAY) {
-            color = activity.getResources().getColor(android.R.color.holo_purple);
-        } else {
-            color = activity.getResources().getColor(android.R.color.holo_green_dark);
-        }
-        holder.reasonText.setTextColor(color);
+    @Override
+    public long getItemId() {
+        return ItemIds.of(VIEW_TYPE, leaveRecord.getId());
+    }
 
-        return row;
+    @Override
+    public boolean hasSameContent(ListViewItem other) {
+        LeaveRecordItem item = (LeaveRecordItem) other;
+        return day.equals(item.day) && date.equals(item.date)
+                && reason.equals(item.reason) && reasonColor == item.reasonColor;
     }
 
     @Override
@@ -4,7 +4,6 @@ import android.app.Activity;
 import android.view.ContextMenu;
 import android.view.MenuItem;
 import android.view.View;
-import android.view.ViewGroup;
 
 /**
  * Created by Sebastian on 20.09.2014.
@@ -13,7 +12,18 @@ public interface ListViewItem {
 
     int getItemViewType();
 
-    View getView(Activity activity, View row, ViewGroup parent);
+    /**
+     * Shows the item in a row created for its view type.
+     */
+    void bindView(View row);
+
+    /**
+     * Stays the same across reloads as long as the item shows the same record,
+     * see {@link ItemIds}.
+     */
+    long getItemId();
+
+    boolean hasSameContent(ListViewItem other);
 
     void onCreateContextMenu(Activity activity, ContextMenu menu);
 
@@ -0,0 +1,65 @@
+package com.github.skyborla.worktime.ui.list;
+
+import android.util.LruCache;
+
+import com.github.skyborla.worktime.model.DB;
+
+import org.threeten.bp.LocalDate;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Recently displayed months, keyed by yyyymm, so paging back and forth does not query
+ * and merge the same months again. Entries are dropped for every month a change touches,
+ * and all of them when the default locale changes, since the items hold formatted labels.
+ */
+public final class MonthCache {
+
+    private static final int MAX_MONTHS = 24;
+
+    private static final LruCache<Integer, MonthRecords> cache = new LruCache<Integer, MonthRecords>(MAX_MONTHS);
+
+    // bumped on every invalidation, loads started before it must not be cached
+    private static int generation = 0;
+
+    // locale the cached labels were formatted in
+    private static Locale locale = Locale.getDefault();
+
+    private MonthCache() {
+    }
+
+    static synchronized MonthRecords get(int month) {
+        checkLocale();
+        return cache.get(month);
+    }
+
+    static synchronized int getGeneration() {
+        checkLocale();
+        return generation;
+    }
+
+    static synchronized void put(int month, MonthRecords records, int loadedInGeneration) {
+        checkLocale();
+        if (loadedInGeneration == generation) {
+            cache.put(month, records);
+        }
+    }
+
+    private static void checkLocale() {
+        Locale current = Locale.getDefault();
+        if (!current.equals(locale)) {
+            locale = current;
+            generation++;
+            cache.evictAll();
+        }
+    }
+
+    public static synchronized void invalidate(Set<LocalDate> months) {
+        generation++;
+
+        for (LocalDate month : months) {
+            cache.remove(DB.toDBMonth(month));
+        }
+    }
+}
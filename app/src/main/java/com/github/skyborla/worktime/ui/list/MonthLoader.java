@@ -0,0 +1,71 @@
+package com.github.skyborla.worktime.ui.list;
+
+import android.content.Context;
+
+import com.github.skyborla.worktime.model.DataSource;
+import com.github.skyborla.worktime.model.LeaveRecord;
+import com.github.skyborla.worktime.model.Summary;
+import com.github.skyborla.worktime.model.WorkRecord;
+
+import org.jdeferred.android.DeferredAsyncTask;
+import org.threeten.bp.LocalDate;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Queries and merges the records of one month off the UI thread and puts the result into
+ * the {@link MonthCache}. The promise is resolved on the UI thread; a cancelled loader
+ * rejects it with a CancellationException.
+ */
+class MonthLoader extends DeferredAsyncTask<Void, Void, MonthRecords> {
+
+    // loads queue up on one thread instead of competing for the database
+    private static final Executor EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private final Context context;
+    private final String month;
+    private final int generation;
+
+    public MonthLoader(Context context, String month) {
+        this.context = context.getApplicationContext();
+        this.month = month;
+        this.generation = MonthCache.getGeneration();
+    }
+
+    public MonthLoader start() {
+        executeOnExecutor(EXECUTOR);
+        return this;
+    }
+
+    @Override
+    protected MonthRecords doInBackgroundSafe(Void... voids) throws Exception {
+        List<WorkRecord> workRecords;
+        List<LeaveRecord> leaveRecords;
+        List<LocalDate> holidays;
+        Summary summary;
+
+        // hold a reference of our own, the fragment may go away while the load is queued
+        DataSource dataSource = DataSource.acquire(context);
+        try {
+            workRecords = dataSource.getWorkRecords(month);
+            leaveRecords = dataSource.getLeaveRecords(month);
+            holidays = dataSource.getHolidays(month);
+            summary = dataSource.getMonthSummary(month);
+        } finally {
+            dataSource.release();
+        }
+
+        if (isCancelled()) {
+            return null;
+        }
+
+        RecordsListProcessor processor = new RecordsListProcessor(context, workRecords, leaveRecords, holidays);
+        processor.process();
+
+        MonthRecords records = new MonthRecords(processor.getElements(), summary);
+        MonthCache.put(Integer.parseInt(month), records, generation);
+        return records;
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.skyborla.worktime.ui.list;
+
+import com.github.skyborla.worktime.model.Summary;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Merged list items and summary of one month, ready to be displayed.
+ */
+class MonthRecords {
+
+    private final List<ListViewItem> elements;
+    private final Summary summary;
+
+    public MonthRecords(List<ListViewItem> elements, Summary summary) {
+        this.elements = Collections.unmodifiableList(elements);
+        this.summary = summary;
+    }
+
+    public List<ListViewItem> getElements() {
+        return elements;
+    }
+
+    public Summary getSummary() {
+        return summary;
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.skyborla.worktime.ui.list;
+
+import android.support.v7.util.DiffUtil;
+
+import java.util.List;
+
+/**
+ * Compares the items of a month before and after a reload, so only changed rows are rebound.
+ */
+class RecordsDiffCallback extends DiffUtil.Callback {
+
+    private final List<ListViewItem> oldElements;
+    private final List<ListViewItem> newElements;
+
+    public RecordsDiffCallback(List<ListViewItem> oldElements, List<ListViewItem> newElements) {
+        this.oldElements = oldElements;
+        this.newElements = newElements;
+    }
+
+    @Override
+    public int getOldListSize() {
+        return oldElements.size();
+    }
+
+    @Override
+    public int getNewListSize() {
+        return newElements.size();
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+        return oldElements.get(oldItemPosition).getItemId() == newElements.get(newItemPosition).getItemId();
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+        return oldElements.get(oldItemPosition).hasSameContent(newElements.get(newItemPosition));
+    }
+}
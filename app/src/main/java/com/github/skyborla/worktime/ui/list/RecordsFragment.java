@@ -2,41 +2,48 @@ package com.github.skyborla.worktime.ui.list;
 
 import android.app.Activity;
 import android.app.Fragment;
-import android.content.Context;
 import android.os.Bundle;
+import android.support.v4.content.ContextCompat;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.view.ContextMenu;
 import android.view.LayoutInflater;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.AdapterView;
-import android.widget.ArrayAdapter;
-import android.widget.ListView;
 import android.widget.TextView;
 
 import com.github.skyborla.worktime.FormatUtil;
 import com.github.skyborla.worktime.R;
-import com.github.skyborla.worktime.model.DataSource;
 import com.github.skyborla.worktime.model.LeaveRecord;
 import com.github.skyborla.worktime.model.Summary;
 import com.github.skyborla.worktime.model.WorkRecord;
 
+import org.jdeferred.DoneCallback;
+import org.jdeferred.FailCallback;
 import org.threeten.bp.LocalDate;
 
-import java.sql.SQLException;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 public class RecordsFragment extends Fragment {
     private static final String ARG_MONTH = "month";
     private String month;
+    private int monthKey;
 
-    private ListView recordsList;
+    private RecyclerView recordsList;
     private TextView summary;
 
-    private DataSource dataSource;
 
     private RecordsFragmentInteractionListener mListener;
-    private ArrayAdapter<ListViewItem> adapter;
+    private RecordsAdapter adapter;
+
+    // the item whose context menu is open
+    private ListViewItem contextItem;
+
+    private MonthLoader loader;
 
     public static RecordsFragment newInstance(LocalDate month) {
         RecordsFragment fragment = new RecordsFragment();
@@ -55,31 +62,21 @@ public class RecordsFragment extends Fragment {
         super.onCreate(savedInstanceState);
         if (getArguments() != null) {
             month = getArguments().getString(ARG_MONTH);
-        }
-
-        dataSource = new DataSource(getActivity());
-
-        try {
-            dataSource.open();
-        } catch (SQLException e) {
-            e.printStackTrace();
+            monthKey = Integer.parseInt(month);
         }
     }
 
-    @Override
-    public void onResume() {
-        try {
-            dataSource.open();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        super.onResume();
-    }
-
     public String getMonth() {
         return month;
     }
 
+    /**
+     * The shown month as yyyymm, see {@link com.github.skyborla.worktime.model.DB#toDBMonth}.
+     */
+    public int getMonthKey() {
+        return monthKey;
+    }
+
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
                              Bundle savedInstanceState) {
@@ -91,25 +88,78 @@ public class RecordsFragment extends Fragment {
     public void onViewCreated(View view, Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        recordsList = (ListView) view.findViewById(R.id.records_list);
+        recordsList = (RecyclerView) view.findViewById(R.id.records_list);
         summary = (TextView) view.findViewById(R.id.records_summary);
 
-        onRecordsUpdated();
-        registerForContextMenu(recordsList);
+        adapter = new RecordsAdapter();
+        recordsList.setLayoutManager(new LinearLayoutManager(getActivity()));
+        recordsList.setAdapter(adapter);
+        // the white row separators of the former ListView divider
+        recordsList.addItemDecoration(new RowDividerDecoration(ContextCompat.getColor(getActivity(), R.color.white), 1));
+
+        mListener.getRecordsFragmentRegistry().register(this);
+
+        // months changed while not shown were dropped from the MonthCache, so they load fresh
+        loadRecords(true);
     }
 
+    @Override
+    public void onDestroyView() {
+        mListener.getRecordsFragmentRegistry().unregister(this);
+        cancelLoader();
+        super.onDestroyView();
+    }
+
+    /**
+     * Reloads the month in the background. Without a view there is nothing to update,
+     * the records are loaded once the view is (re)created.
+     */
     public void onRecordsUpdated() {
+        loadRecords(true);
+    }
 
-        List<WorkRecord> workRecords = dataSource.getWorkRecords(month);
-        List<LeaveRecord> leaveRecords = dataSource.getLeaveRecords(month);
-        List<LocalDate> holidays = dataSource.getHolidays(month);
-        RecordsListProcessor processor = new RecordsListProcessor(workRecords, leaveRecords, holidays);
-        processor.process();
+    private void loadRecords(boolean useCache) {
+        if (getView() == null) {
+            return;
+        }
 
-        adapter = new RecordsAdapter(getActivity(), processor.getElements());
-        recordsList.setAdapter(adapter);
+        cancelLoader();
 
-        Summary recodsSummary = processor.getSummary();
+        MonthRecords cached = useCache ? MonthCache.get(monthKey) : null;
+        if (cached != null) {
+            showRecords(cached);
+            return;
+        }
+
+        loader = new MonthLoader(getActivity(), month);
+        loader.promise().done(new DoneCallback<MonthRecords>() {
+            @Override
+            public void onDone(MonthRecords records) {
+                loader = null;
+                showRecords(records);
+            }
+        }).fail(new FailCallback<Throwable>() {
+            @Override
+            public void onFail(Throwable result) {
+                if (!(result instanceof CancellationException)) {
+                    result.printStackTrace();
+                }
+            }
+        });
+        loader.start();
+    }
+
+    private void cancelLoader() {
+        if (loader != null) {
+            loader.cancel(false);
+            loader = null;
+        }
+    }
+
+    private void showRecords(MonthRecords records) {
+        adapter.setElements(records.getElements());
+
+        Summary recodsSummary = records.getSummary();
         if (recodsSummary.getTotalWorkedSeconds() == 0) {
             summary.setText("Diesen Monat nicht gearbeitet.");
 
@@ -143,9 +193,13 @@ public class RecordsFragment extends Fragment {
 
     @Override
     public void onCreateContextMenu(ContextMenu menu, View v, ContextMenu.ContextMenuInfo menuInfo) {
-        System.out.println(month);
-        AdapterView.AdapterContextMenuInfo adapterInfo = (AdapterView.AdapterContextMenuInfo) menuInfo;
-        adapter.getItem(adapterInfo.position).onCreateContextMenu(getActivity(), menu);
+        int position = recordsList.getChildAdapterPosition(v);
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        contextItem = adapter.getItem(position);
+        contextItem.onCreateContextMenu(getActivity(), menu);
     }
 
     @Override
@@ -153,23 +207,53 @@ public class RecordsFragment extends Fragment {
 
         // filter for correct target list !!
         // see http://stackoverflow.com/a/10162443
-        if (!getUserVisibleHint()) {
+        if (!getUserVisibleHint() || contextItem == null) {
             return false;
         }
 
-        AdapterView.AdapterContextMenuInfo adapterInfo = (AdapterView.AdapterContextMenuInfo) item.getMenuInfo();
-        return adapter.getItem(adapterInfo.position).onContextItemSelected(item, mListener);
+        ListViewItem selected = contextItem;
+        contextItem = null;
+        return selected.onContextItemSelected(item, mListener);
+    }
+
+    /**
+     * Forgets the item of a context menu closed without a selection.
+     */
+    void onContextMenuClosed() {
+        contextItem = null;
     }
 
-    public class RecordsAdapter extends ArrayAdapter<ListViewItem> {
+    /**
+     * Keeps the displayed items between reloads and applies only the differences,
+     * so the scroll position survives and unchanged rows are not rebound.
+     */
+    private class RecordsAdapter extends RecyclerView.Adapter<RecordHolder> {
 
-        public RecordsAdapter(Context context, List<ListViewItem> objects) {
-            super(context, 0, objects);
+        private List<ListViewItem> elements = Collections.emptyList();
+
+        public RecordsAdapter() {
+            setHasStableIds(true);
+        }
+
+        public void setElements(List<ListViewItem> newElements) {
+            if (elements.isEmpty()) {
+                elements = newElements;
+                notifyDataSetChanged();
+                return;
+            }
+
+            DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new RecordsDiffCallback(elements, newElements));
+            elements = newElements;
+            diff.dispatchUpdatesTo(this);
+        }
+
+        public ListViewItem getItem(int position) {
+            return elements.get(position);
         }
 
         @Override
-        public int getViewTypeCount() {
-            return 3;
+        public int getItemCount() {
+            return elements.size();
         }
 
         @Override
@@ -179,18 +263,41 @@ public class RecordsFragment extends Fragment {
 
         @Override
         public long getItemId(int position) {
-            Object item = getItem(position);
-            return item.hashCode();
+            return getItem(position).getItemId();
         }
 
         @Override
-        public boolean hasStableIds() {
-            return true;
+        public RecordHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+
+            View row;
+            switch (viewType) {
+                case WorkRecordItem.VIEW_TYPE:
+                    row = WorkRecordItem.createView(inflater, parent);
+                    registerForContextMenu(row);
+                    break;
+                case LeaveRecordItem.VIEW_TYPE:
+                    row = LeaveRecordItem.createView(inflater, parent);
+                    registerForContextMenu(row);
+                    break;
+                default:
+                    row = WeekHeaderItem.createView(inflater, parent);
+                    break;
+            }
+
+            return new RecordHolder(row);
         }
 
         @Override
-        public View getView(int position, View row, ViewGroup parent) {
-            return getItem(position).getView(getActivity(), row, parent);
+        public void onBindViewHolder(RecordHolder holder, int position) {
+            getItem(position).bindView(holder.itemView);
+        }
+    }
+
+    private static class RecordHolder extends RecyclerView.ViewHolder {
+
+        public RecordHolder(View row) {
+            super(row);
         }
     }
 
@@ -202,5 +309,7 @@ public class RecordsFragment extends Fragment {
         void beginEditLeaveRecord(LeaveRecord leaveRecord);
 
         void beginDeleteLeaveRecord(LeaveRecord leaveRecord);
+
+        RecordsFragmentRegistry getRecordsFragmentRegistry();
     }
 }
@@ -0,0 +1,44 @@
+package com.github.skyborla.worktime.ui.list;
+
+import com.github.skyborla.worktime.model.DB;
+
+import org.threeten.bp.LocalDate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The records fragments that currently show their month, keyed by yyyymm. Months without
+ * such a fragment need no refresh: {@link MonthCache#invalidate} already dropped them, so
+ * they load fresh once shown again. Used on the UI thread only.
+ */
+public class RecordsFragmentRegistry {
+
+    private final Map<Integer, RecordsFragment> live = new HashMap<Integer, RecordsFragment>();
+
+    void register(RecordsFragment fragment) {
+        live.put(fragment.getMonthKey(), fragment);
+    }
+
+    void unregister(RecordsFragment fragment) {
+        if (live.get(fragment.getMonthKey()) == fragment) {
+            live.remove(fragment.getMonthKey());
+        }
+    }
+
+    public void contextMenuClosed() {
+        for (RecordsFragment fragment : live.values()) {
+            fragment.onContextMenuClosed();
+        }
+    }
+
+    public void refresh(Set<LocalDate> months) {
+        for (LocalDate month : months) {
+            RecordsFragment fragment = live.get(DB.toDBMonth(month));
+            if (fragment != null) {
+                fragment.onRecordsUpdated();
+            }
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package com.github.skyborla.worktime.ui.list;
 
+import android.content.Context;
+
 import com.github.skyborla.worktime.model.LeaveRecord;
 import com.github.skyborla.worktime.model.MergingListProcessor;
-import com.github.skyborla.worktime.model.Summary;
 import com.github.skyborla.worktime.model.WorkRecord;
 
 import org.threeten.bp.LocalDate;
@@ -13,39 +14,38 @@ import java.util.List;
 /**
  * WARNING: NOT THREAD SAFE
  * Created by Sebastian on 20.09.2014.
+ * Builds the list items with all their display strings, meant to run off the UI thread.
  */
 class RecordsListProcessor extends MergingListProcessor {
 
-    private Summary summary = new Summary();
+    private final Context context;
+
     private List<ListViewItem> elements = new ArrayList<ListViewItem>();
 
-    public RecordsListProcessor(List<WorkRecord> workRecords, List<LeaveRecord> leaveRecords, List<LocalDate> holidays) {
+    public RecordsListProcessor(Context context, List<WorkRecord> workRecords, List<LeaveRecord> leaveRecords, List<LocalDate> holidays) {
         super(workRecords, leaveRecords, holidays);
+        this.context = context;
     }
 
     @Override
     protected void process(WorkRecord workRecord) {
-        summary.add(workRecord);
         elements.add(new WorkRecordItem(workRecord));
     }
 
     @Override
     protected void process(LeaveRecord leaveRecord) {
-        elements.add(new LeaveRecordItem(leaveRecord));
+        elements.add(new LeaveRecordItem(context, leaveRecord));
     }
 
     @Override
     protected void newWeek(int week) {
-        elements.add(new WeekHeaderItem(week));
+        elements.add(new WeekHeaderItem(getWeekYear(), week));
     }
 
     public List<ListViewItem> getElements() {
         return elements;
     }
 
-    public Summary getSummary() {
-        return summary;
-    }
 
 
 
@@ -0,0 +1,48 @@
+package com.github.skyborla.worktime.ui.list;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * Draws a line of the given color between the rows, like the divider of a ListView.
+ */
+class RowDividerDecoration extends RecyclerView.ItemDecoration {
+
+    private final Paint paint = new Paint();
+    private final int height;
+
+    public RowDividerDecoration(int color, int height) {
+        this.paint.setColor(color);
+        this.height = height;
+    }
+
+    @Override
+    public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+        int position = parent.getChildAdapterPosition(view);
+        if (position != RecyclerView.NO_POSITION && position < state.getItemCount() - 1) {
+            outRect.set(0, 0, 0, height);
+        } else {
+            outRect.set(0, 0, 0, 0);
+        }
+    }
+
+    @Override
+    public void onDraw(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
+        int left = parent.getPaddingLeft();
+        int right = parent.getWidth() - parent.getPaddingRight();
+
+        for (int i = 0; i < parent.getChildCount(); i++) {
+            View child = parent.getChildAt(i);
+            int position = parent.getChildAdapterPosition(child);
+            if (position == RecyclerView.NO_POSITION || position >= state.getItemCount() - 1) {
+                continue;
+            }
+
+            int top = child.getBottom() + Math.round(child.getTranslationY());
+            canvas.drawRect(left, top, right, top + height, paint);
+        }
+    }
+}
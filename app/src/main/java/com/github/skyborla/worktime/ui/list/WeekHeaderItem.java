@@ -15,29 +15,43 @@ import com.github.skyborla.worktime.R;
  */
 public class WeekHeaderItem implements ListViewItem {
 
-    private int week;
+    public static final int VIEW_TYPE = 0;
 
-    public WeekHeaderItem(int week) {
-        this.week = week;
+    private final long id;
+    private final String title;
+
+    public WeekHeaderItem(int year, int week) {
+        this.id = ItemIds.of(VIEW_TYPE, year * 100 + week);
+        this.title = "KW " + Integer.toString(week);
     }
 
     @Override
     public int getItemViewType() {
-        return 0;
+        return VIEW_TYPE;
     }
 
-    @Override
-    public View getView(Activity activity, View row, ViewGroup parent) {
-        if (row == null) {
-            LayoutInflater inflater = activity.getLayoutInflater();
-            row = inflater.inflate(R.layout.record_list_header_item, parent, false);
-        }
-
-        TextView text = (TextView) row.findViewById(R.id.record_list_week);
-        text.setText("KW " + Integer.toString(week));
+    public static View createView(LayoutInflater inflater, ViewGroup parent) {
+        View row = inflater.inflate(R.layout.record_list_header_item, parent, false);
+        row.setTag(row.findViewById(R.id.record_list_week));
         return row;
     }
 
+    @Override
+    public void bindView(View row) {
+        TextView text = (TextView) row.getTag();
+        text.setText(title);
+    }
+
+    @Override
+    public long getItemId() {
+        return id;
+    }
+
+    @Override
+    public boolean hasSameContent(ListViewItem other) {
+        return true;
+    }
+
     @Override
     public void onCreateContextMenu(Activity activity, ContextMenu menu) {
     }
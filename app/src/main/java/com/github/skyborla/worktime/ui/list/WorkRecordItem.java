@@ -16,9 +16,12 @@ import com.github.skyborla.worktime.model.WorkRecord;
 
 /**
  * Created by Sebastian on 20.09.2014.
+ * The display strings are formatted once when the item is created, binding only assigns them.
  */
 public class WorkRecordItem implements ListViewItem {
 
+    public static final int VIEW_TYPE = 1;
+
     public static class WorkRecordHolder {
         public TextView dayText;
         public TextView dateText;
@@ -26,54 +29,68 @@ public class WorkRecordItem implements ListViewItem {
         public TextView timeText;
     }
 
-    private WorkRecord workRecord;
+    private final WorkRecord workRecord;
+
+    private final String day;
+    private final String date;
+    private final String duration;
+    private final String times;
 
     public WorkRecordItem(WorkRecord workRecord) {
         this.workRecord = workRecord;
+
+        day = FormatUtil.formatWeekday(workRecord.getDate());
+        date = FormatUtil.formatShortDate(workRecord.getDate());
+        duration = "(" + FormatUtil.formatDuration(workRecord) + ")";
+        times = FormatUtil.formatTimes(workRecord);
     }
 
     @Override
     public int getItemViewType() {
-        return 1;
+        return VIEW_TYPE;
     }
 
-    @Override
-    public View getView(Activity activity, View row, ViewGroup parent) {
+    public static View createView(LayoutInflater inflater, ViewGroup parent) {
+        View row = inflater.inflate(R.layout.record_list_work_item, parent, false);
 
-        WorkRecordHolder holder;
-        if (row == null) {
-            LayoutInflater inflater = activity.getLayoutInflater();
-            row = inflater.inflate(R.layout.record_list_work_item, parent, false);
+        WorkRecordHolder holder = new WorkRecordHolder();
+        holder.dayText = (TextView) row.findViewById(R.id.record_list_day);
+        holder.dateText = (TextView) row.findViewById(R.id.record_list_date);
+        holder.durationText = (TextView) row.findViewById(R.id.record_list_reason);
+        holder.timeText = (TextView) row.findViewById(R.id.record_list_time);
 
-            holder = new WorkRecordHolder();
-            holder.dayText = (TextView) row.findViewById(R.id.record_list_day);
-            holder.dateText = (TextView) row.findViewById(R.id.record_list_date);
-            holder.durationText = (TextView) row.findViewById(R.id.record_list_reason);
-            holder.timeText = (TextView) row.findViewById(R.id.record_list_time);
+        holder.dayText.setWidth(Worktime.DATE_COLUMN_WIDTH);
 
-            holder.dayText.setWidth(Worktime.DATE_COLUMN_WIDTH);
-
-            row.setTag(holder);
-        } else {
-            holder = (WorkRecordHolder) row.getTag();
-        }
+        row.setTag(holder);
+        return row;
+    }
 
-        holder.dayText.setText(FormatUtil.DATE_FORMAT_DAY.format(workRecord.getDate()));
-        holder.dateText.setText(FormatUtil.DATE_FORMAT_SHORT.format(workRecord.getDate()));
+    @Override
+    public void bindView(View row) {
+        WorkRecordHolder holder = (WorkRecordHolder) row.getTag();
 
-        String duration = FormatUtil.formatDuration(workRecord);
-        holder.durationText.setText("(" + duration + ")");
+        holder.dayText.setText(day);
+        holder.dateText.setText(date);
+        holder.durationText.setText(duration);
+        holder.timeText.setText(times);
+    }
 
-        holder.timeText.setText(FormatUtil.formatTimes(workRecord));
+    @Override
+    public long getItemId() {
+        return ItemIds.of(VIEW_TYPE, workRecord.getId());
+    }
 
-        return row;
+    @Override
+    public boolean hasSameContent(ListViewItem other) {
+        WorkRecordItem item = (WorkRecordItem) other;
+        return day.equals(item.day) && date.equals(item.date)
+                && duration.equals(item.duration) && times.equals(item.times);
     }
 
     @Override
     public void onCreateContextMenu(Activity activity, ContextMenu menu) {
 
-        String header = FormatUtil.DATE_FORMAT_SHORT.format(workRecord.getDate());
-        header += " (" + FormatUtil.formatTimes(workRecord) + ")";
+        String header = date + " (" + times + ")";
 
         menu.setHeaderTitle(header);
         menu.setHeaderIcon(R.drawable.ic_launcher);
@@ -0,0 +1,121 @@
+package com.github.skyborla.worktime.benchmark;
+
+import com.github.skyborla.worktime.model.LeaveReason;
+import com.github.skyborla.worktime.model.LeaveRecord;
+import com.github.skyborla.worktime.model.WorkRecord;
+
+import org.threeten.bp.DayOfWeek;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.LocalTime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic multi-year record history, shaped like the data the app keeps:
+ * one to three work records per weekday, scattered leave records and holidays
+ * (sometimes overlapping other leave records, which the merge has to drop).
+ */
+public class Dataset {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(1990, 1, 1);
+    private static final LeaveReason[] LEAVE_REASONS = new LeaveReason[]{
+            LeaveReason.VACATION, LeaveReason.LEAVE, LeaveReason.HEALTH, LeaveReason.OTHER};
+
+    public final List<WorkRecord> workRecords = new ArrayList<WorkRecord>();
+    public final List<LeaveRecord> leaveRecords = new ArrayList<LeaveRecord>();
+    public final List<LocalDate> holidays = new ArrayList<LocalDate>();
+
+    public final List<Month> months = new ArrayList<Month>();
+
+    /**
+     * Records of a single month, as {@code DataSource} hands them to the exporter.
+     */
+    public static class Month {
+        public final LocalDate month;
+        public final List<WorkRecord> workRecords = new ArrayList<WorkRecord>();
+        public final List<LeaveRecord> leaveRecords = new ArrayList<LeaveRecord>();
+        public final List<LocalDate> holidays = new ArrayList<LocalDate>();
+
+        Month(LocalDate month) {
+            this.month = month;
+        }
+    }
+
+    /**
+     * @param size total number of work and leave records to generate
+     */
+    public static Dataset generate(int size) {
+        Dataset dataset = new Dataset();
+        Random random = new Random(42);
+
+        long id = 1;
+        int rows = 0;
+        Month month = null;
+
+        LocalDate date = FIRST_DAY;
+        while (rows < size) {
+
+            if (month == null || !month.month.equals(date.withDayOfMonth(1))) {
+                month = new Month(date.withDayOfMonth(1));
+                dataset.months.add(month);
+            }
+
+            if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                date = date.plusDays(1);
+                continue;
+            }
+
+            int dice = random.nextInt(100);
+            if (dice < 4) {
+                LeaveRecord holiday = new LeaveRecord(id++, null, date, LeaveReason.HOLIDAY, true);
+                dataset.add(month, holiday);
+                rows++;
+
+                // a vacation spanning the holiday
+                if (dice == 0 && rows < size) {
+                    dataset.add(month, new LeaveRecord(id++, null, date, LeaveReason.VACATION, true));
+                    rows++;
+                }
+            } else if (dice < 10) {
+                LeaveReason reason = LEAVE_REASONS[random.nextInt(LEAVE_REASONS.length)];
+                dataset.add(month, new LeaveRecord(id++, null, date, reason, true));
+                rows++;
+            } else {
+                LocalTime start = LocalTime.of(7, 0).plusMinutes(random.nextInt(120));
+                int count = 1 + random.nextInt(3);
+
+                for (int i = 0; i < count && rows < size; i++) {
+                    LocalTime end = start.plusMinutes(60 + random.nextInt(180));
+
+                    WorkRecord workRecord = new WorkRecord(date, start, end);
+                    workRecord.setId(id++);
+                    dataset.add(month, workRecord);
+                    rows++;
+
+                    start = end.plusMinutes(15 + random.nextInt(45));
+                }
+            }
+
+            date = date.plusDays(1);
+        }
+
+        return dataset;
+    }
+
+    private void add(Month month, WorkRecord workRecord) {
+        workRecords.add(workRecord);
+        month.workRecords.add(workRecord);
+    }
+
+    private void add(Month month, LeaveRecord leaveRecord) {
+        leaveRecords.add(leaveRecord);
+        month.leaveRecords.add(leaveRecord);
+
+        if (leaveRecord.getReason() == LeaveReason.HOLIDAY) {
+            holidays.add(leaveRecord.getDate());
+            month.holidays.add(leaveRecord.getDate());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.skyborla.worktime.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Shared benchmark input: a synthetic history of {@link #size} records.
+ */
+@State(Scope.Benchmark)
+public class DatasetState {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    public Dataset dataset;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dataset = Dataset.generate(size);
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.skyborla.worktime.benchmark;
+
+import com.github.skyborla.worktime.FormatUtil;
+import com.github.skyborla.worktime.model.WorkRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.threeten.bp.Duration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormatUtilBenchmark {
+
+    private List<WorkRecord> workRecords;
+    private int[] durations;
+
+    @Setup(Level.Trial)
+    public void setup(DatasetState state) {
+        workRecords = state.dataset.workRecords;
+
+        durations = new int[workRecords.size()];
+        for (int i = 0; i < durations.length; i++) {
+            WorkRecord workRecord = workRecords.get(i);
+            durations[i] = (int) Duration.between(workRecord.getStartTime(), workRecord.getEndTime()).getSeconds();
+        }
+    }
+
+    @Benchmark
+    public void formatDuration(Blackhole blackhole) {
+        for (int seconds : durations) {
+            blackhole.consume(FormatUtil.formatDuration(seconds));
+        }
+    }
+
+    @Benchmark
+    public void formatRow(Blackhole blackhole) {
+        for (WorkRecord workRecord : workRecords) {
+            blackhole.consume(FormatUtil.formatWeekday(workRecord.getDate()));
+            blackhole.consume(FormatUtil.formatShortDate(workRecord.getDate()));
+            blackhole.consume(FormatUtil.formatTimes(workRecord));
+        }
+    }
+}
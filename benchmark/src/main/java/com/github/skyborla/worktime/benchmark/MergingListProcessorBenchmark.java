@@ -0,0 +1,68 @@
+package com.github.skyborla.worktime.benchmark;
+
+import com.github.skyborla.worktime.model.LeaveRecord;
+import com.github.skyborla.worktime.model.MergingListProcessor;
+import com.github.skyborla.worktime.model.WorkRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MergingListProcessorBenchmark {
+
+    @Benchmark
+    public void process(DatasetState state, final Blackhole blackhole) {
+        Dataset dataset = state.dataset;
+
+        new MergingListProcessor(dataset.workRecords, dataset.leaveRecords, dataset.holidays) {
+            @Override
+            protected void process(WorkRecord workRecord) {
+                blackhole.consume(workRecord);
+            }
+
+            @Override
+            protected void process(LeaveRecord leaveRecord) {
+                blackhole.consume(leaveRecord);
+            }
+
+            @Override
+            protected void newWeek(int week) {
+                blackhole.consume(week);
+            }
+        }.process();
+    }
+
+    @Benchmark
+    public void processLinkedList(DatasetState state, final Blackhole blackhole) {
+        Dataset dataset = state.dataset;
+
+        new LinkedListMergingListProcessor(dataset.workRecords, dataset.leaveRecords, dataset.holidays) {
+            @Override
+            protected void process(WorkRecord workRecord) {
+                blackhole.consume(workRecord);
+            }
+
+            @Override
+            protected void process(LeaveRecord leaveRecord) {
+                blackhole.consume(leaveRecord);
+            }
+
+            @Override
+            protected void newWeek(int week) {
+                blackhole.consume(week);
+            }
+        }.process();
+    }
+}
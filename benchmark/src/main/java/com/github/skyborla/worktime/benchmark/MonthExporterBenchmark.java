@@ -0,0 +1,83 @@
+package com.github.skyborla.worktime.benchmark;
+
+import android.content.Context;
+
+import com.github.skyborla.worktime.export.ExportFormat;
+import com.github.skyborla.worktime.export.MonthExporter;
+import com.github.skyborla.worktime.export.WorkbookWriter;
+import com.github.skyborla.worktime.model.LeaveRecord;
+import com.github.skyborla.worktime.model.Summary;
+import com.github.skyborla.worktime.model.WorkRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports the whole dataset into an in-memory workbook of each format, one sheet per year,
+ * the same way {@code RecordsExporter} drives the {@link MonthExporter}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MonthExporterBenchmark {
+
+    private final Context context = new StubContext();
+
+    @Param({"XLS", "XLSX"})
+    public ExportFormat format;
+
+    @Benchmark
+    public int writeMonth(DatasetState state) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WorkbookWriter workbook = format.createWriter(out);
+
+        int lastYear = -1;
+        MonthExporter exporter = null;
+        Summary yearSummary = null;
+
+        for (Dataset.Month month : state.dataset.months) {
+            int thisYear = month.month.getYear();
+            if (thisYear != lastYear) {
+                if (exporter != null) {
+                    exporter.finalizeSheet(yearSummary);
+                }
+
+                exporter = new MonthExporter(context, workbook, Integer.toString(thisYear));
+                yearSummary = new Summary();
+                lastYear = thisYear;
+            }
+
+            exporter.writeMonth(month.month, month.workRecords, month.leaveRecords, month.holidays);
+
+            // stands in for the year summary the app reads from the database
+            for (WorkRecord workRecord : month.workRecords) {
+                yearSummary.add(workRecord);
+            }
+            for (LeaveRecord leaveRecord : month.leaveRecords) {
+                yearSummary.add(leaveRecord);
+            }
+        }
+
+        if (exporter != null) {
+            exporter.finalizeSheet(yearSummary);
+        }
+
+        workbook.write();
+        workbook.close();
+        return out.size();
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.skyborla.worktime.benchmark;
+
+import android.content.Context;
+import android.content.res.Resources;
+
+import com.github.skyborla.worktime.model.LeaveReason;
+
+/**
+ * Resolves the leave reason labels the exporter asks for, nothing else.
+ */
+class StubContext extends Context {
+
+    private final Resources resources = new Resources() {
+        @Override
+        public String getString(int id) {
+            for (LeaveReason reason : LeaveReason.values()) {
+                if (reason.stringResource == id) {
+                    return reason.name();
+                }
+            }
+            return Integer.toHexString(id);
+        }
+
+        @Override
+        public String getQuantityString(int id, int quantity, Object... formatArgs) {
+            return quantity + " " + Integer.toHexString(id);
+        }
+    };
+
+    @Override
+    public Resources getResources() {
+        return resources;
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.skyborla.worktime.benchmark;
+
+import com.github.skyborla.worktime.model.LeaveRecord;
+import com.github.skyborla.worktime.model.Summary;
+import com.github.skyborla.worktime.model.WorkRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SummaryBenchmark {
+
+    @Benchmark
+    public Summary add(DatasetState state) {
+        Summary summary = new Summary();
+
+        for (WorkRecord workRecord : state.dataset.workRecords) {
+            summary.add(workRecord);
+        }
+        for (LeaveRecord leaveRecord : state.dataset.leaveRecords) {
+            summary.add(leaveRecord);
+        }
+
+        return summary;
+    }
+
+    @Benchmark
+    public Summary mergeMonths(DatasetState state) {
+        Summary summary = new Summary();
+
+        for (Dataset.Month month : state.dataset.months) {
+            Summary monthSummary = new Summary();
+
+            for (WorkRecord workRecord : month.workRecords) {
+                monthSummary.add(workRecord);
+            }
+            for (LeaveRecord leaveRecord : month.leaveRecords) {
+                monthSummary.add(leaveRecord);
+            }
+
+            summary.merge(monthSummary);
+        }
+
+        return summary;
+    }
+}
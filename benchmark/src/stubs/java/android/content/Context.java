@@ -0,0 +1,16 @@
+package android.content;
+
+import android.content.res.Resources;
+
+/**
+ * Compile-time stand-in for the Android class of the same name, covering only
+ * what the benchmarked app sources use.
+ */
+public abstract class Context {
+
+    public abstract Resources getResources();
+
+    public final String getString(int resId) {
+        return getResources().getString(resId);
+    }
+}
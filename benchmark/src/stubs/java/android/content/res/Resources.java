@@ -0,0 +1,12 @@
+package android.content.res;
+
+/**
+ * Compile-time stand-in for the Android class of the same name, covering only
+ * what the benchmarked app sources use.
+ */
+public abstract class Resources {
+
+    public abstract String getString(int id);
+
+    public abstract String getQuantityString(int id, int quantity, Object... formatArgs);
+}
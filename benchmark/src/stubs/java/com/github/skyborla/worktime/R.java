@@ -0,0 +1,22 @@
+package com.github.skyborla.worktime;
+
+/**
+ * Stand-in for the generated resource class, covering only the resources
+ * referenced by the benchmarked app sources.
+ */
+public final class R {
+
+    public static final class string {
+        public static final int leave_reason_holiday = 0x7f060001;
+        public static final int leave_reason_vacation = 0x7f060002;
+        public static final int leave_reason_leave = 0x7f060003;
+        public static final int leave_reason_health = 0x7f060004;
+        public static final int leave_reason_other = 0x7f060005;
+    }
+
+    public static final class plurals {
+        public static final int total_worktime_hours = 0x7f070001;
+        public static final int total_worktime_minutes = 0x7f070002;
+        public static final int total_worktime_days = 0x7f070003;
+    }
+}
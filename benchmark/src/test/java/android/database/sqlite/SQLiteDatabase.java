@@ -0,0 +1,29 @@
+package android.database.sqlite;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Test stand-in for the Android class of the same name, running the statements of
+ * {@code DB} on a JDBC connection.
+ */
+public class SQLiteDatabase {
+
+    public interface CursorFactory {
+    }
+
+    private final Connection connection;
+
+    public SQLiteDatabase(Connection connection) {
+        this.connection = connection;
+    }
+
+    public void execSQL(String sql) {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            throw new SQLiteException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package android.database.sqlite;
+
+/**
+ * Test stand-in for the Android class of the same name.
+ */
+public class SQLiteException extends RuntimeException {
+
+    public SQLiteException(String message) {
+        super(message);
+    }
+}
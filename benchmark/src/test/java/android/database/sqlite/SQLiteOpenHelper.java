@@ -0,0 +1,19 @@
+package android.database.sqlite;
+
+import android.content.Context;
+
+/**
+ * Test stand-in for the Android class of the same name, covering only what {@code DB} uses.
+ */
+public abstract class SQLiteOpenHelper {
+
+    public SQLiteOpenHelper(Context context, String name, SQLiteDatabase.CursorFactory factory, int version) {
+    }
+
+    public void setWriteAheadLoggingEnabled(boolean enabled) {
+    }
+
+    public abstract void onCreate(SQLiteDatabase db);
+
+    public abstract void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion);
+}
@@ -0,0 +1,138 @@
+package com.github.skyborla.worktime.model;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks with EXPLAIN QUERY PLAN that the {@link Queries} of {@link DataSource} are served by
+ * the indexes of {@link DB}, on the schema DB creates.
+ */
+public class QueryPlanTest {
+
+    private Connection connection;
+
+    @Before
+    public void createSchema() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+
+        Context context = new Context() {
+            @Override
+            public Resources getResources() {
+                return null;
+            }
+        };
+        new DB(context).onCreate(new SQLiteDatabase(connection));
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void workRecordsOfMonthUseMonthIndex() throws SQLException {
+        String plan = explain(Queries.workRecordsOfMonth("201609"));
+
+        assertTrue(plan, plan.contains("COVERING INDEX work_records_month"));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void leaveRecordsOfMonthUseMonthIndex() throws SQLException {
+        String plan = explain(Queries.leaveRecordsOfMonth("201609"));
+
+        assertTrue(plan, plan.contains("COVERING INDEX leave_records_month"));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void multidayLeaveUsesBaseIdIndex() throws SQLException {
+        String plan = explain(Queries.leaveGroupDates(42));
+
+        assertTrue(plan, plan.contains("INDEX leave_records_base_id"));
+        assertFalse(plan, plan.contains("SCAN TABLE"));
+    }
+
+    @Test
+    public void holidaysOfMonthUseReasonIndex() throws SQLException {
+        String plan = explain(Queries.holidaysOfMonth("201609"));
+
+        assertTrue(plan, plan.contains("COVERING INDEX leave_records_reason"));
+    }
+
+    @Test
+    public void monthCountsAreGroupedAlongMonthIndexes() throws SQLException {
+        String workPlan = explain(Queries.WORK_MONTH_COUNTS);
+        String leavePlan = explain(Queries.LEAVE_MONTH_COUNTS);
+
+        assertTrue(workPlan, workPlan.contains("COVERING INDEX work_records_month"));
+        assertFalse(workPlan, workPlan.contains("TEMP B-TREE"));
+        assertTrue(leavePlan, leavePlan.contains("COVERING INDEX leave_records_"));
+        assertFalse(leavePlan, leavePlan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void scansUseMonthIndexes() throws SQLException {
+        String workPlan = explain(Queries.workScan("201601", "201612"));
+        String leavePlan = explain(Queries.leaveScan("201601", "201612"));
+
+        assertTrue(workPlan, workPlan.contains("COVERING INDEX work_records_month (month>? AND month<?)"));
+        assertFalse(workPlan, workPlan.contains("TEMP B-TREE"));
+        assertTrue(leavePlan, leavePlan.contains("COVERING INDEX leave_records_month (month>? AND month<?)"));
+        assertFalse(leavePlan, leavePlan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void monthSummariesUseMonthIndexes() throws SQLException {
+        String where = Queries.monthIs("201609");
+        String workPlan = explain(Queries.workSummaries(Queries.GROUP_BY_MONTH, where));
+        String leavePlan = explain(Queries.leaveSummaries(Queries.GROUP_BY_MONTH, where));
+
+        assertTrue(workPlan, workPlan.contains("COVERING INDEX work_records_month (month=?)"));
+        assertFalse(workPlan, workPlan.contains("TEMP B-TREE"));
+        assertTrue(leavePlan, leavePlan.contains("COVERING INDEX leave_records_reason (month=?)"));
+        assertTrue(leavePlan, leavePlan.contains("COVERING INDEX leave_records_reason (month=? AND reason=? AND date=?)"));
+        assertFalse(leavePlan, leavePlan.contains("SCAN TABLE"));
+        assertFalse(leavePlan, leavePlan.contains("TEMP B-TREE"));
+    }
+
+    /**
+     * The records are read along the month indexes; only the grouping by year (month / 100)
+     * needs a temporary b-tree, holding one row per year.
+     */
+    @Test
+    public void yearSummariesUseMonthIndexes() throws SQLException {
+        String where = Queries.monthBetween("201601", "201612");
+        String workPlan = explain(Queries.workSummaries(Queries.GROUP_BY_YEAR, where));
+        String leavePlan = explain(Queries.leaveSummaries(Queries.GROUP_BY_YEAR, where));
+
+        assertTrue(workPlan, workPlan.contains("COVERING INDEX work_records_month (month>? AND month<?)"));
+        assertTrue(leavePlan, leavePlan.contains("COVERING INDEX leave_records_reason (month=? AND reason=? AND date=?)"));
+        assertFalse(leavePlan, leavePlan.contains("SCAN TABLE"));
+    }
+
+    private String explain(String query) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("explain query plan " + query)) {
+            while (result.next()) {
+                plan.append(result.getString(4)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+}
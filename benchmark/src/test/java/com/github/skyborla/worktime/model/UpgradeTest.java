@@ -0,0 +1,173 @@
+package com.github.skyborla.worktime.model;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.LocalTime;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs {@link DB#onUpgrade} from the text encoded version 7 schema on a database with records
+ * and checks the converted columns.
+ */
+public class UpgradeTest {
+
+    // the schema of version 7, as created by the releases before the integer columns
+    private static final String CREATE_V7_WORK_RECORDS = "create table work_records (" +
+            "id integer primary key autoincrement, month text not null, date text not null, " +
+            "start_time text not null, end_time text not null);";
+    private static final String CREATE_V7_LEAVE_RECORDS = "create table leave_records (" +
+            "id integer primary key autoincrement, base_id integer, month text not null, " +
+            "date text not null, reason text not null, workdays integer not null);";
+
+    private Connection connection;
+    private DB db;
+
+    @Before
+    public void createV7Database() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+
+        execute(CREATE_V7_WORK_RECORDS);
+        execute(CREATE_V7_LEAVE_RECORDS);
+
+        execute("insert into work_records values (1, '201609', '2016-09-05', '08:15', '17:00')");
+        execute("insert into work_records values (2, '201512', '2015-12-31', '00:00', '23:59')");
+        execute("insert into work_records values (7, '197001', '1970-01-01', '09:05', '09:06')");
+
+        // a leave over two months and a holiday on its last day
+        execute("insert into leave_records values (10, null, '201609', '2016-09-30', 'VACATION', 1)");
+        execute("insert into leave_records values (11, 10, '201610', '2016-10-03', 'VACATION', 1)");
+        execute("insert into leave_records values (12, null, '201610', '2016-10-03', 'HOLIDAY', 0)");
+
+        db = new DB(new Context() {
+            @Override
+            public Resources getResources() {
+                return null;
+            }
+        });
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void workRecordsAreConverted() throws SQLException {
+        db.onUpgrade(new SQLiteDatabase(connection), 7, 10);
+
+        List<String> rows = query("select id, month, date, start_time, end_time from work_records order by id");
+
+        assertEquals(3, rows.size());
+        assertEquals(row(1, 201609, day(2016, 9, 5), minute(8, 15), minute(17, 0)), rows.get(0));
+        assertEquals(row(2, 201512, day(2015, 12, 31), minute(0, 0), minute(23, 59)), rows.get(1));
+        assertEquals(row(7, 197001, 0, 9 * 60 + 5, 9 * 60 + 6), rows.get(2));
+    }
+
+    @Test
+    public void leaveRecordsAreConverted() throws SQLException {
+        db.onUpgrade(new SQLiteDatabase(connection), 7, 10);
+
+        List<String> rows = query("select id, base_id, month, date, reason, workdays from leave_records order by id");
+
+        assertEquals(3, rows.size());
+        assertEquals(row(10, null, 201609, day(2016, 9, 30), "VACATION", 1), rows.get(0));
+        assertEquals(row(11, 10, 201610, day(2016, 10, 3), "VACATION", 1), rows.get(1));
+        assertEquals(row(12, null, 201610, day(2016, 10, 3), "HOLIDAY", 0), rows.get(2));
+    }
+
+    @Test
+    public void convertedColumnsAreIntegers() throws SQLException {
+        db.onUpgrade(new SQLiteDatabase(connection), 7, 10);
+
+        assertEquals(row("integer", "integer", "integer", "integer"),
+                query("select distinct typeof(month), typeof(date), typeof(start_time), typeof(end_time) " +
+                        "from work_records").get(0));
+        assertEquals(row("integer", "integer"),
+                query("select distinct typeof(month), typeof(date) from leave_records").get(0));
+    }
+
+    @Test
+    public void schemaMatchesFreshInstall() throws SQLException {
+        db.onUpgrade(new SQLiteDatabase(connection), 7, 10);
+
+        List<String> tables = query("select name from sqlite_master where type = 'table' " +
+                "and name not like 'sqlite_%' order by name");
+        assertEquals(3, tables.size());
+        assertEquals(row("leave_records"), tables.get(0));
+        assertEquals(row("month_versions"), tables.get(1));
+        assertEquals(row("work_records"), tables.get(2));
+
+        List<String> indexes = query("select name from sqlite_master where type = 'index' " +
+                "and name not like 'sqlite_%' order by name");
+        assertEquals(4, indexes.size());
+        assertTrue(indexes.contains(row("work_records_month")));
+        assertTrue(indexes.contains(row("leave_records_month")));
+        assertTrue(indexes.contains(row("leave_records_base_id")));
+        assertTrue(indexes.contains(row("leave_records_reason")));
+    }
+
+    @Test
+    public void idsContinueAfterTheCopiedRecords() throws SQLException {
+        db.onUpgrade(new SQLiteDatabase(connection), 7, 10);
+
+        execute("insert into work_records (month, date, start_time, end_time) values (201611, 17106, 480, 960)");
+        execute("insert into leave_records (month, date, reason, workdays) values (201611, 17106, 'HEALTH', 1)");
+
+        assertEquals(row(8), query("select max(id) from work_records").get(0));
+        assertEquals(row(13), query("select max(id) from leave_records").get(0));
+    }
+
+    private static long day(int year, int month, int day) {
+        return DB.toDBDate(LocalDate.of(year, month, day));
+    }
+
+    private static int minute(int hour, int minute) {
+        return DB.toDBTime(LocalTime.of(hour, minute));
+    }
+
+    private static String row(Object... values) {
+        StringBuilder row = new StringBuilder();
+        for (Object value : values) {
+            row.append(value).append('|');
+        }
+        return row.toString();
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private List<String> query(String sql) throws SQLException {
+        List<String> rows = new ArrayList<String>();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(sql)) {
+            int columns = result.getMetaData().getColumnCount();
+            while (result.next()) {
+                Object[] values = new Object[columns];
+                for (int i = 0; i < columns; i++) {
+                    values[i] = result.getObject(i + 1);
+                }
+                rows.add(row(values));
+            }
+        }
+        return rows;
+    }
+}